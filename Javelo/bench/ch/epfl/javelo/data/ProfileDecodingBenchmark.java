@@ -0,0 +1,151 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Bits;
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Q28_4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Banc d'essai comparant le décodage en une passe des profils compressés de GraphEdges au décodage
+ * échantillon par échantillon qu'il remplace, recopié ici comme référence : les profils de toutes les
+ * arêtes du graphe sont décodés par les deux méthodes, qui doivent produire exactement les mêmes
+ * échantillons, puis le temps de décodage de chacune est mesuré.
+ * Usage : ProfileDecodingBenchmark répertoire-du-graphe
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class ProfileDecodingBenchmark {
+
+    /**
+     * Nombre de décodages de l'ensemble des profils effectués avant les mesures
+     */
+    private static final int WARM_UP_RUNS = 5;
+
+    /**
+     * Nombre de décodages de l'ensemble des profils mesurés
+     */
+    private static final int MEASURED_RUNS = 20;
+
+    /**
+     * Constructeur privé car la classe est non instanciable
+     */
+    private ProfileDecodingBenchmark() {}
+
+    /**
+     * Point d'entrée du banc d'essai
+     * @param args répertoire du graphe
+     * @throws IOException en cas d'erreur de lecture du graphe
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args[0]);
+        GraphEdges edges = new GraphEdges(
+                map(basePath.resolve("edges.bin")),
+                map(basePath.resolve("profile_ids.bin")).asIntBuffer(),
+                map(basePath.resolve("elevations.bin")).asShortBuffer());
+
+        long sampleCount = 0;
+        for (int edgeId = 0; edgeId < edges.count(); edgeId++) {
+            float[] samples = edges.storedProfileSamples(edgeId);
+            if (!Arrays.equals(samples, referenceSamples(edges, edgeId))) {
+                throw new AssertionError("profil de l'arête " + edgeId + " différent de la référence");
+            }
+            sampleCount += samples.length;
+        }
+
+        double referenceMilliseconds = measure(edges, true);
+        double bulkMilliseconds = measure(edges, false);
+
+        System.out.printf("%d arêtes, %d échantillons%n", edges.count(), sampleCount);
+        System.out.printf("échantillon par échantillon : %.2f ms, en une passe : %.2f ms, accélération : %.2f%n",
+                referenceMilliseconds, bulkMilliseconds, referenceMilliseconds / bulkMilliseconds);
+    }
+
+    /**
+     * Méthode outil qui mesure le temps moyen de décodage des profils de toutes les arêtes
+     * @param edges les arêtes du graphe
+     * @param reference vrai pour mesurer le décodage de référence, faux pour celui de GraphEdges
+     * @return le temps moyen de décodage, en millisecondes
+     */
+    private static double measure(GraphEdges edges, boolean reference) {
+        float checksum = 0;
+
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            checksum += decodeAll(edges, reference);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            checksum += decodeAll(edges, reference);
+        }
+        double milliseconds = (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+
+        if (Float.isNaN(checksum)) System.out.println("somme de contrôle invalide");
+        return milliseconds;
+    }
+
+    /**
+     * Méthode outil qui décode les profils de toutes les arêtes, et retourne la somme de leurs derniers
+     * échantillons afin que le décodage ne puisse pas être éliminé par le compilateur
+     * @param edges les arêtes du graphe
+     * @param reference vrai pour utiliser le décodage de référence, faux pour celui de GraphEdges
+     * @return la somme des derniers échantillons des profils
+     */
+    private static float decodeAll(GraphEdges edges, boolean reference) {
+        float sum = 0;
+
+        for (int edgeId = 0; edgeId < edges.count(); edgeId++) {
+            float[] samples = reference ? referenceSamples(edges, edgeId) : edges.storedProfileSamples(edgeId);
+            if (samples.length > 0) sum += samples[samples.length - 1];
+        }
+        return sum;
+    }
+
+    /**
+     * Méthode outil qui décode le profil de l'arête donnée, dans le sens de la voie OSM, échantillon par
+     * échantillon comme le faisait GraphEdges avant l'introduction du décodage en une passe
+     * @param edges les arêtes du graphe
+     * @param edgeId identité de l'arête
+     * @return le tableau des échantillons, vide si l'arête ne possède pas de profil
+     */
+    private static float[] referenceSamples(GraphEdges edges, int edgeId) {
+        int type = Bits.extractUnsigned(edges.profileIds().get(edgeId), Integer.SIZE - 2, 2);
+        int firstSampleId = Bits.extractUnsigned(edges.profileIds().get(edgeId), 0, Integer.SIZE - 2);
+        ShortBuffer elevations = edges.elevations();
+
+        if (type == 0) return new float[0];
+
+        float[] samples = new float[edges.numberOfSamples(edgeId)];
+        samples[0] = Q28_4.asFloat(Short.toUnsignedInt(elevations.get(firstSampleId)));
+
+        for (int i = 1; i < edges.numberOfSamples(edgeId); i++) {
+            if (type == 1) {
+                samples[i] = Q28_4.asFloat(Short.toUnsignedInt(elevations.get(firstSampleId + i)));
+            } else {
+                samples[i] = samples[i - 1] + Q28_4.asFloat(Bits.extractSigned(
+                        elevations.get(Math2.ceilDiv(i, type == 2 ? 2 : 4) + firstSampleId),
+                        type == 2 ? (i % 2 == 0 ? 0 : 8) : 12 - 4 * ((i - 1) % 4),
+                        type == 2 ? Byte.SIZE : Byte.SIZE / 2));
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Méthode outil qui projette en mémoire le fichier donné
+     * @param path chemin du fichier
+     * @return le contenu du fichier
+     * @throws IOException en cas d'erreur de lecture du fichier
+     */
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Banc d'essai mesurant l'effet de la renumérotation des noeuds par GraphRenumbering sur le temps
+ * des recherches : les mêmes requêtes, définies par des lieux et non par des identités de noeuds,
+ * sont exécutées sur le graphe d'origine et sur le graphe renuméroté avec le moteur INDEXED_HEAP.
+ * Aux requêtes de RouteComputerBenchmark s'ajoutent des requêtes entre des noeuds tirés au hasard
+ * dans le graphe d'origine, de sorte que le banc d'essai convienne à tout graphe.
+ * Les deux graphes sont mesurés en alternance, l'ordre des mesures changeant à chaque tour, afin que
+ * ni le préchauffage de la machine virtuelle ni le contenu des caches ne favorisent l'un d'eux ; le gain
+ * de chaque tour est affiché, suivi de leur médiane et de leur étendue, une mesure isolée n'étant
+ * pas significative.
+ * Usage : RenumberingBenchmark répertoire-d'origine répertoire-renuméroté
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class RenumberingBenchmark {
+
+    /**
+     * Nombre de requêtes entre des noeuds tirés au hasard
+     */
+    private static final int RANDOM_QUERY_COUNT = 200;
+
+    /**
+     * Graine du générateur des requêtes aléatoires, fixe afin que les mesures soient reproductibles
+     */
+    private static final long SEED = 2022;
+
+    /**
+     * Distance de recherche des noeuds des requêtes aléatoires, qui se trouvent exactement sur un noeud
+     */
+    private static final double RANDOM_SEARCH_DISTANCE = 1;
+
+    /**
+     * Nombre de tours de mesure de chacun des deux graphes
+     */
+    private static final int ROUND_COUNT = 10;
+
+    /**
+     * Constructeur privé car la classe est non instanciable
+     */
+    private RenumberingBenchmark() {}
+
+    /**
+     * Point d'entrée du banc d'essai
+     * @param args répertoires du graphe d'origine et du graphe renuméroté
+     * @throws IOException en cas d'erreur de lecture des graphes
+     */
+    public static void main(String[] args) throws IOException {
+        Graph original = Graph.loadFrom(Path.of(args[0]));
+        Graph renumbered = Graph.loadFrom(Path.of(args[1]));
+
+        List<PointCh> points = new ArrayList<>();
+        for (RouteComputerBenchmark.Query query : RouteComputerBenchmark.QUERIES) {
+            points.add(query.start());
+            points.add(query.end());
+        }
+        Random random = new Random(SEED);
+        for (int i = 0; i < 2 * RANDOM_QUERY_COUNT; i++) {
+            points.add(original.nodePoint(random.nextInt(original.nodeCount())));
+        }
+
+        Benchmark originalBenchmark = new Benchmark(original, points);
+        Benchmark renumberedBenchmark = new Benchmark(renumbered, points);
+
+        for (int i = 0; i < RouteComputerBenchmark.WARM_UP_RUNS; i++) {
+            originalBenchmark.run();
+            renumberedBenchmark.run();
+        }
+
+        double[] gains = new double[ROUND_COUNT];
+        for (int round = 0; round < ROUND_COUNT; round++) {
+            double originalMilliseconds;
+            double renumberedMilliseconds;
+
+            if (round % 2 == 0) {
+                originalMilliseconds = originalBenchmark.measure();
+                renumberedMilliseconds = renumberedBenchmark.measure();
+            } else {
+                renumberedMilliseconds = renumberedBenchmark.measure();
+                originalMilliseconds = originalBenchmark.measure();
+            }
+            gains[round] = 100 * (1 - renumberedMilliseconds / originalMilliseconds);
+
+            System.out.printf("tour %d : graphe d'origine : %.1f ms, graphe renuméroté : %.1f ms, gain : %.1f %%%n",
+                    round + 1, originalMilliseconds, renumberedMilliseconds, gains[round]);
+        }
+
+        Arrays.sort(gains);
+        System.out.printf("gain médian : %.1f %%, étendue : de %.1f %% à %.1f %%%n",
+                (gains[(ROUND_COUNT - 1) / 2] + gains[ROUND_COUNT / 2]) / 2, gains[0], gains[ROUND_COUNT - 1]);
+    }
+
+    /**
+     * Méthode outil qui retourne le noeud le plus proche du lieu donné, cherché d'abord tout près
+     * (lieux des requêtes aléatoires) puis à la distance de recherche de RouteComputerBenchmark
+     * @param graph le graphe
+     * @param point le lieu
+     * @return l'identité du noeud, -1 s'il n'y en a aucun
+     */
+    private static int closestNode(Graph graph, PointCh point) {
+        int nodeId = graph.nodeClosestTo(point, RANDOM_SEARCH_DISTANCE);
+        return nodeId != -1 ? nodeId : graph.nodeClosestTo(point, RouteComputerBenchmark.SEARCH_DISTANCE);
+    }
+
+    /**
+     * Classe qui représente les requêtes du banc d'essai sur l'un des graphes
+     */
+    private static final class Benchmark {
+
+        /**
+         * Calculateur d'itinéraires sur le graphe
+         */
+        private final RouteComputer computer;
+
+        /**
+         * Paires de noeuds de départ et d'arrivée des requêtes
+         */
+        private final List<int[]> queries;
+
+        /**
+         * Constructeur des requêtes entre les lieux donnés, rattachés aux noeuds du graphe donné
+         * @param graph le graphe
+         * @param points lieux de départ et d'arrivée des requêtes, alternés
+         */
+        private Benchmark(Graph graph, List<PointCh> points) {
+            this.computer = new RouteComputer(graph, new CityBikeCF(graph));
+            this.queries = new ArrayList<>();
+
+            for (int i = 0; i < points.size(); i += 2) {
+                int startNodeId = closestNode(graph, points.get(i));
+                int endNodeId = closestNode(graph, points.get(i + 1));
+
+                if (startNodeId != -1 && endNodeId != -1 && startNodeId != endNodeId) {
+                    queries.add(new int[]{startNodeId, endNodeId});
+                }
+            }
+        }
+
+        /**
+         * Mesure le temps moyen d'exécution de l'ensemble des requêtes
+         * @return le temps moyen, en millisecondes
+         */
+        private double measure() {
+            long start = System.nanoTime();
+            for (int i = 0; i < RouteComputerBenchmark.MEASURED_RUNS; i++) {
+                run();
+            }
+            return (System.nanoTime() - start) / 1e6 / RouteComputerBenchmark.MEASURED_RUNS;
+        }
+
+        /**
+         * Exécute toutes les requêtes
+         */
+        private void run() {
+            for (int[] query : queries) {
+                computer.bestRouteBetween(query[0], query[1]);
+            }
+        }
+    }
+}
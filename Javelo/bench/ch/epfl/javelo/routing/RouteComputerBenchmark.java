@@ -0,0 +1,150 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Banc d'essai comparant les moteurs de recherche de RouteComputer sur un ensemble fixe
+ * de paires de lieux suisses : nombre de noeuds visités et temps d'exécution moyen.
+ * Si le répertoire du graphe contient landmarks.bin, chaque moteur est aussi mesuré avec
+ * l'heuristique ALT ; s'il contient les fichiers de la hiérarchie de contraction, le moteur
+ * CONTRACTION_HIERARCHY est aussi mesuré.
+ * Usage : RouteComputerBenchmark [répertoire du graphe, par défaut Javelo/javelo-data]
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class RouteComputerBenchmark {
+
+    /**
+     * Distance de recherche du noeud le plus proche de chaque lieu
+     */
+    static final double SEARCH_DISTANCE = 2_000;
+
+    /**
+     * Nombre d'exécutions de chauffe de chaque requête, non mesurées
+     */
+    static final int WARM_UP_RUNS = 3;
+
+    /**
+     * Nombre d'exécutions mesurées de chaque requête
+     */
+    static final int MEASURED_RUNS = 10;
+
+    /**
+     * Paires de lieux (départ, arrivée) utilisées par le banc d'essai
+     */
+    static final List<Query> QUERIES = List.of(
+            new Query("Genève - St-Gall", new PointCh(2_500_000, 1_118_000), new PointCh(2_746_000, 1_254_000)),
+            new Query("Lausanne - Zurich", new PointCh(2_538_000, 1_152_000), new PointCh(2_683_000, 1_248_000)),
+            new Query("Bâle - Sion", new PointCh(2_611_000, 1_267_000), new PointCh(2_594_000, 1_120_000)),
+            new Query("Berne - Lugano", new PointCh(2_600_000, 1_200_000), new PointCh(2_717_000, 1_096_000)),
+            new Query("Neuchâtel - Coire", new PointCh(2_561_000, 1_205_000), new PointCh(2_759_000, 1_191_000)),
+            new Query("EPFL - gare de Lausanne", new PointCh(2_533_000, 1_152_000), new PointCh(2_537_900, 1_152_000)));
+
+    /**
+     * Constructeur privé car la classe est non instanciable
+     */
+    private RouteComputerBenchmark() {}
+
+    /**
+     * Point d'entrée du banc d'essai
+     * @param args répertoire contenant les fichiers du graphe (optionnel)
+     * @throws IOException en cas d'erreur de lecture du graphe
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "Javelo/javelo-data");
+        // Les pages des fichiers sont lues d'avance afin que les défauts de page ne faussent pas les mesures
+        Graph graph = Graph.loadFrom(basePath, Graph.LoadMode.WARMED_IN_PARALLEL);
+        System.out.println(graph.loadReport());
+        CostFunction costFunction = new CityBikeCF(graph);
+
+        Map<String, HeuristicFunction> heuristics = new LinkedHashMap<>();
+        heuristics.put("vol d'oiseau", new StraightLineHeuristic(graph));
+        if (Files.exists(basePath.resolve(LandmarkHeuristic.FILE_NAME))) {
+            heuristics.put("ALT", LandmarkHeuristic.loadFrom(basePath, graph));
+        }
+
+        ContractionHierarchy hierarchy = Files.exists(basePath.resolve(ContractionHierarchy.ARCS_FILE_NAME))
+                ? ContractionHierarchy.loadFrom(basePath, graph)
+                : null;
+
+        System.out.printf("%-26s %-22s %-13s %12s %12s %12s%n",
+                "requête", "moteur", "heuristique", "visités", "ms", "longueur");
+
+        for (Query query : QUERIES) {
+            int startNodeId = graph.nodeClosestTo(query.start(), SEARCH_DISTANCE);
+            int endNodeId = graph.nodeClosestTo(query.end(), SEARCH_DISTANCE);
+
+            if (startNodeId == -1 || endNodeId == -1 || startNodeId == endNodeId) {
+                System.out.printf("%-26s ignorée : aucun noeud à proximité%n", query.name());
+                continue;
+            }
+
+            for (RouteComputer.Engine engine : RouteComputer.Engine.values()) {
+                if (engine == RouteComputer.Engine.CONTRACTION_HIERARCHY) continue;
+
+                for (Map.Entry<String, HeuristicFunction> heuristic : heuristics.entrySet()) {
+                    // Le moteur PRIORITY_QUEUE n'utilise que la distance à vol d'oiseau
+                    if (engine == RouteComputer.Engine.PRIORITY_QUEUE
+                            && heuristic.getValue() instanceof LandmarkHeuristic) continue;
+
+                    measure(query.name(), new RouteComputer(graph, costFunction, engine, heuristic.getValue()),
+                            engine, heuristic.getKey(), startNodeId, endNodeId);
+                }
+            }
+
+            if (hierarchy != null) {
+                measure(query.name(), new RouteComputer(graph, costFunction, hierarchy),
+                        RouteComputer.Engine.CONTRACTION_HIERARCHY, "-", startNodeId, endNodeId);
+            }
+        }
+    }
+
+    /**
+     * Méthode outil qui mesure et affiche le temps moyen et le nombre de noeuds visités d'une requête
+     * @param queryName nom de la requête
+     * @param computer calculateur d'itinéraires à mesurer
+     * @param engine moteur de recherche du calculateur
+     * @param heuristicName nom de l'heuristique du calculateur
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId identité du noeud d'arrivée
+     */
+    private static void measure(String queryName, RouteComputer computer, RouteComputer.Engine engine,
+                                String heuristicName, int startNodeId, int endNodeId) {
+
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            computer.bestRouteBetween(startNodeId, endNodeId);
+        }
+
+        Route route = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            route = computer.bestRouteBetween(startNodeId, endNodeId);
+        }
+        double milliseconds = (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+
+        System.out.printf("%-26s %-22s %-13s %12d %12.2f %12.0f%n",
+                queryName,
+                engine,
+                heuristicName,
+                computer.settledNodeCount(),
+                milliseconds,
+                route == null ? Double.NaN : route.length());
+    }
+
+    /**
+     * Enregistrement qui représente une requête du banc d'essai
+     * @param name nom de la requête
+     * @param start lieu de départ
+     * @param end lieu d'arrivée
+     */
+    record Query(String name, PointCh start, PointCh end) {}
+}
@@ -1,12 +1,14 @@
 package ch.epfl.javelo.data;
 
 import ch.epfl.javelo.Functions;
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.Q28_4;
 import ch.epfl.javelo.projection.PointCh;
 import java.io.IOException;
 import java.nio.*;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.function.DoubleUnaryOperator;
 
@@ -33,9 +35,29 @@ public final class Graph {
      */
     private final GraphEdges edges;
     /**
-     * Attributs du graph JaVelo
+     * Ensembles d'attributs du graph JaVelo, sous forme de vecteurs de bits décodés à la demande
      */
-    private final List<AttributeSet> attributeSets;
+    private final LongBuffer attributeSets;
+    /**
+     * Ensembles d'attributs du graph JaVelo déjà décodés, par index, null pour ceux qui ne l'ont pas encore été
+     */
+    private final AttributeSet[] decodedAttributeSets;
+    /**
+     * Adjacence inverse du graph JaVelo, construite à sa première utilisation
+     */
+    private volatile GraphInEdges inEdges;
+    /**
+     * Longueur de la plus longue arete du graph JaVelo, calculée à sa première utilisation, négative avant
+     */
+    private volatile double maxEdgeLength;
+    /**
+     * Cache des profils en long décodés des aretes du graph JaVelo
+     */
+    private final ProfileCache profileCache;
+    /**
+     * Rapport du chargement du graph JaVelo, null s'il n'a pas été chargé depuis des fichiers
+     */
+    private final LoadReport loadReport;
 
     /**
      * Constructeur du graph JaVelo
@@ -45,47 +67,104 @@ public final class Graph {
      * @param attributeSets Attributs du graph JaVelo
      */
     public Graph(GraphNodes nodes, GraphSectors sectors, GraphEdges edges, List<AttributeSet> attributeSets){
+        this(nodes, sectors, edges, LongBuffer.wrap(attributeSets.stream().mapToLong(AttributeSet::bits).toArray()),
+                null);
+    }
+
+    /**
+     * Constructeur privé du graph JaVelo chargé depuis des fichiers
+     * @param nodes Noeud du graph JaVelo
+     * @param sectors Secteurs du graph JaVelo
+     * @param edges Aretes du graph JaVelo
+     * @param attributeSets Vecteurs de bits des ensembles d'attributs du graph JaVelo
+     * @param loadReport Rapport du chargement
+     */
+    private Graph(GraphNodes nodes, GraphSectors sectors, GraphEdges edges, LongBuffer attributeSets,
+                  LoadReport loadReport){
         this.nodes =nodes;
         this.sectors = sectors;
         this.edges = edges;
-        this.attributeSets = List.copyOf(attributeSets);
+        this.attributeSets = attributeSets;
+        this.decodedAttributeSets = new AttributeSet[attributeSets.capacity()];
+        this.profileCache = new ProfileCache(ProfileCache.DEFAULT_CAPACITY);
+        this.loadReport = loadReport;
+        this.maxEdgeLength = -1;
     }
 
     /**
-     * Méthode permettant de charger le graphe depuis un répertoire
+     * Méthode permettant de charger le graphe depuis un répertoire, sans vérification ni préchargement :
+     * les fichiers sont projetés en mémoire et leurs pages ne sont lues qu'à leur premier accès
      * @param basePath chemin d'accès du repertoire
      * @return le graphe JaVelo obtenu à partir des fichiers se trouvant
      * dans le répertoire dont le chemin d'accès est basePath
      * @throws IOException en cas d'erreur d'entrée/sortie.
      */
     public static Graph loadFrom(Path basePath) throws IOException{
-        IntBuffer nodesBuffer=extractBufferFromPath("nodes.bin",basePath).asIntBuffer();
+        return loadFrom(basePath, LoadMode.LAZY);
+    }
 
-        ByteBuffer sectorsBuffer=extractBufferFromPath("sectors.bin",basePath);
+    /**
+     * Méthode permettant de charger le graphe depuis un répertoire selon le mode donné ; la durée de chaque
+     * étape du chargement est disponible au moyen de loadReport
+     * @param basePath chemin d'accès du repertoire
+     * @param mode mode de chargement
+     * @return le graphe JaVelo obtenu à partir des fichiers se trouvant
+     * dans le répertoire dont le chemin d'accès est basePath
+     * @throws IOException en cas d'erreur d'entrée/sortie, ou si les fichiers sont incohérents
+     * (sauf en mode LAZY)
+     */
+    public static Graph loadFrom(Path basePath, LoadMode mode) throws IOException{
+        long start = System.nanoTime();
 
-        ByteBuffer edgesBuffer=extractBufferFromPath("edges.bin",basePath);
+        MappedByteBuffer nodesBytes=extractBufferFromPath("nodes.bin",basePath);
 
-        IntBuffer profileIdsBuffer=extractBufferFromPath("profile_ids.bin",basePath).asIntBuffer();
+        MappedByteBuffer sectorsBuffer=extractBufferFromPath("sectors.bin",basePath);
 
-        ShortBuffer elevationsBuffer=extractBufferFromPath("elevations.bin",basePath).asShortBuffer();
+        MappedByteBuffer edgesBuffer=extractBufferFromPath("edges.bin",basePath);
 
-        LongBuffer attributesBuffer=extractBufferFromPath("attributes.bin",basePath).asLongBuffer();
+        MappedByteBuffer profileIdsBytes=extractBufferFromPath("profile_ids.bin",basePath);
 
+        MappedByteBuffer elevationsBytes=extractBufferFromPath("elevations.bin",basePath);
 
-        List<AttributeSet> attributeSets = new ArrayList<>(attributesBuffer.capacity());
+        MappedByteBuffer attributesBytes=extractBufferFromPath("attributes.bin",basePath);
 
-        for (int i = 0 ; i<attributesBuffer.capacity() ; i++){
-            long attributeLong = attributesBuffer.get(i);
+        List<MappedByteBuffer> files = List.of(nodesBytes, sectorsBuffer, edgesBuffer,
+                profileIdsBytes, elevationsBytes, attributesBytes);
 
-            AttributeSet attribute = new AttributeSet(attributeLong);
+        long mapped = System.nanoTime();
 
-            attributeSets.add(attribute);
+        if (mode == LoadMode.WARMED) {
+            files.forEach(MappedByteBuffer::load);
+        } else if (mode == LoadMode.WARMED_IN_PARALLEL) {
+            files.parallelStream().forEach(MappedByteBuffer::load);
         }
 
-        return new Graph(new GraphNodes(nodesBuffer),
-                new GraphSectors(sectorsBuffer),
-                new GraphEdges(edgesBuffer,profileIdsBuffer,elevationsBuffer),
-                attributeSets);
+        long warmed = System.nanoTime();
+
+        // Les ensembles d'attributs sont lus directement dans le fichier, sans en créer la liste
+        LongBuffer attributeSets=attributesBytes.asLongBuffer();
+
+        GraphNodes nodes = new GraphNodes(nodesBytes.asIntBuffer());
+        GraphSectors sectors = new GraphSectors(sectorsBuffer);
+        GraphEdges edges = new GraphEdges(edgesBuffer,profileIdsBytes.asIntBuffer(),elevationsBytes.asShortBuffer());
+
+        if (mode != LoadMode.LAZY) GraphValidation.validate(nodes, sectors, edges, attributeSets);
+
+        long validated = System.nanoTime();
+
+        long byteCount = 0;
+        for (MappedByteBuffer file : files) byteCount += file.capacity();
+
+        return new Graph(nodes, sectors, edges, attributeSets,
+                new LoadReport(mode, byteCount, mapped - start, warmed - mapped, validated - warmed));
+    }
+
+    /**
+     * Retourne le rapport du chargement du graphe
+     * @return le rapport, null si le graphe n'a pas été chargé au moyen de loadFrom
+     */
+    public LoadReport loadReport(){
+        return loadReport;
     }
 
     /**
@@ -96,9 +175,9 @@ public final class Graph {
      * @return le ByteBuffer Mémoire tampon à extraire
      * @throws IOException en cas d'erreurd'entrée/sortie
      */
-    private static ByteBuffer extractBufferFromPath(String pathString,Path basePath) throws IOException{
+    private static MappedByteBuffer extractBufferFromPath(String pathString,Path basePath) throws IOException{
         Path path = basePath.resolve(pathString);
-        ByteBuffer buffer;
+        MappedByteBuffer buffer;
         try (FileChannel channel = FileChannel.open(path)) {
             buffer = extractBuffer(channel);
         }
@@ -141,6 +220,25 @@ public final class Graph {
         return nodes.edgeId(nodeId, edgeIndex);
     }
 
+    /**
+     * Retourne le nombre d'arêtes entrant dans le nœud d'identité donnée
+     * @param nodeId identite du noeud
+     * @return le nombre d'arêtes entrantes
+     */
+    public int nodeInDegree(int nodeId){
+        return inEdges().inDegree(nodeId);
+    }
+
+    /**
+     * Retourne l'identité de la edgeIndex-ième arête entrant dans le nœud d'identité nodeId
+     * @param nodeId identite du noeud
+     * @param edgeIndex index de l'arête parmi les arêtes entrantes du noeud
+     * @return l'identite de l'arête
+     */
+    public int nodeInEdgeId(int nodeId, int edgeIndex){
+        return inEdges().edgeId(nodeId, edgeIndex);
+    }
+
     /**
      * Retourne l'identité du nœud se trouvant le plus proche du point donné, à la
      *distance maximale donnée en metres
@@ -149,29 +247,226 @@ public final class Graph {
      * @return l'identite du noeud le plus proche et -1 si aucun nœud ne correspond aux criteres de recherche
      */
     public int nodeClosestTo(PointCh point, double searchDistance){
-        List<GraphSectors.Sector> sectorsInArea = this.sectors.sectorsInArea(point, searchDistance);
+        double e = point.e();
+        double n = point.n();
+
+        int xMin = sectors.sectorX(e - searchDistance);
+        int xMax = sectors.sectorX(e + searchDistance);
+        int yMin = sectors.sectorY(n - searchDistance);
+        int yMax = sectors.sectorY(n + searchDistance);
 
         double smallestDistance=searchDistance*searchDistance;
 
         int indexClosestTo= -1;
 
-        for (GraphSectors.Sector sector : sectorsInArea){
-            for (int i = sector.startNodeId(); i < sector.endNodeId(); i++){
-                PointCh nodePoint=nodePoint(i);
+        // Parcours direct des secteurs et des coordonnées Q28.4, sans créer d'objet par secteur ou par noeud
+        for (int y = yMin; y <= yMax; y++){
+            for (int x = xMin; x <= xMax; x++){
+                int sectorId = sectors.sectorId(x, y);
+                int endNodeId = sectors.sectorEndNodeId(sectorId);
 
-
-                    double distance = point.squaredDistanceTo(nodePoint);
+                for (int i = sectors.sectorStartNodeId(sectorId); i < endNodeId; i++){
+                    double distance = squaredDistanceToNode(e, n, i);
 
                     if (distance <= smallestDistance){
                         smallestDistance = distance;
                         indexClosestTo = i;
                     }
-
+                }
             }
         }
         return indexClosestTo;
     }
 
+    /**
+     * Détermine les k noeuds les plus proches du point donné, à la distance maximale donnée, k étant
+     * la taille du tableau nodeIds ; aucun objet n'est créé
+     * @param point point dont on cherche les noeuds les plus proches
+     * @param searchDistance la distance de recherche
+     * @param nodeIds tableau dans lequel sont écrites les identités des noeuds, du plus proche au plus éloigné
+     * @param distances tableau, de même taille que nodeIds, dans lequel sont écrites leurs distances en mètres
+     * @return le nombre de noeuds trouvés, au plus k
+     * @throws IllegalArgumentException si les deux tableaux n'ont pas la même taille
+     */
+    public int nodesClosestTo(PointCh point, double searchDistance, int[] nodeIds, double[] distances){
+        Preconditions.checkArgument(nodeIds.length == distances.length);
+
+        double e = point.e();
+        double n = point.n();
+        int k = nodeIds.length;
+        int count = 0;
+
+        int xMin = sectors.sectorX(e - searchDistance);
+        int xMax = sectors.sectorX(e + searchDistance);
+        int yMin = sectors.sectorY(n - searchDistance);
+        int yMax = sectors.sectorY(n + searchDistance);
+
+        double squaredSearchDistance = searchDistance*searchDistance;
+
+        for (int y = yMin; y <= yMax; y++){
+            for (int x = xMin; x <= xMax; x++){
+                int sectorId = sectors.sectorId(x, y);
+                int endNodeId = sectors.sectorEndNodeId(sectorId);
+
+                for (int i = sectors.sectorStartNodeId(sectorId); i < endNodeId; i++){
+                    double distance = squaredDistanceToNode(e, n, i);
+
+                    if (distance > squaredSearchDistance) continue;
+                    if (count == k && (k == 0 || distance >= distances[k - 1])) continue;
+
+                    // Insertion dans les tableaux triés par distance croissante (au carré pendant la recherche)
+                    int index = count < k ? count++ : k - 1;
+                    while (index > 0 && distances[index - 1] > distance){
+                        distances[index] = distances[index - 1];
+                        nodeIds[index] = nodeIds[index - 1];
+                        index -= 1;
+                    }
+                    distances[index] = distance;
+                    nodeIds[index] = i;
+                }
+            }
+        }
+
+        for (int i = 0; i < count; i++){
+            distances[i] = Math.sqrt(distances[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Détermine tous les noeuds se trouvant à la distance donnée du point donné ; aucun objet n'est créé
+     * @param point centre de la recherche
+     * @param radius la distance de recherche
+     * @param nodeIds tableau dans lequel sont écrites, dans l'ordre des secteurs, les identités des noeuds,
+     * tant qu'il y a de la place
+     * @return le nombre total de noeuds se trouvant à la distance donnée, qui peut dépasser la taille du tableau
+     */
+    public int nodesWithin(PointCh point, double radius, int[] nodeIds){
+        double e = point.e();
+        double n = point.n();
+        int count = 0;
+
+        int xMin = sectors.sectorX(e - radius);
+        int xMax = sectors.sectorX(e + radius);
+        int yMin = sectors.sectorY(n - radius);
+        int yMax = sectors.sectorY(n + radius);
+
+        double squaredRadius = radius*radius;
+
+        for (int y = yMin; y <= yMax; y++){
+            for (int x = xMin; x <= xMax; x++){
+                int sectorId = sectors.sectorId(x, y);
+                int endNodeId = sectors.sectorEndNodeId(sectorId);
+
+                for (int i = sectors.sectorStartNodeId(sectorId); i < endNodeId; i++){
+                    if (squaredDistanceToNode(e, n, i) > squaredRadius) continue;
+
+                    if (count < nodeIds.length) nodeIds[count] = i;
+                    count += 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Détermine l'arête la plus proche du point donné, à la distance maximale donnée, ainsi que la projection
+     * du point sur celle-ci ; les arêtes sont assimilées au segment reliant leurs extrémités. Les secteurs
+     * parcourus sont ceux situés à moins de la distance de recherche augmentée de la moitié de la longueur
+     * de la plus longue arête, de sorte qu'une arête traversant un secteur sans qu'aucune de ses extrémités
+     * ne s'y trouve soit tout de même examinée (les arêtes du graphe allant par paires de sens opposés,
+     * il suffit d'examiner celles partant d'un noeud des secteurs parcourus).
+     * Aucun objet n'est créé
+     * @param point point dont on cherche l'arête la plus proche
+     * @param searchDistance la distance de recherche
+     * @param projection tableau d'au moins deux éléments dans lequel sont écrites la position, en mètres
+     * le long de l'arête, du point le plus proche, puis la distance entre ce point et le point donné
+     * @return l'identité de l'arête la plus proche et -1 si aucune arête ne correspond aux criteres de recherche
+     * @throws IllegalArgumentException si le tableau a moins de deux éléments
+     */
+    public int edgeClosestTo(PointCh point, double searchDistance, double[] projection){
+        Preconditions.checkArgument(projection.length >= 2);
+
+        double e = point.e();
+        double n = point.n();
+
+        // Un segment passant à moins de searchDistance du point a une extrémité à moins de
+        // searchDistance plus la moitié de sa longueur
+        double scanDistance = searchDistance + maxEdgeLength() / 2;
+        int xMin = sectors.sectorX(e - scanDistance);
+        int xMax = sectors.sectorX(e + scanDistance);
+        int yMin = sectors.sectorY(n - scanDistance);
+        int yMax = sectors.sectorY(n + scanDistance);
+
+        double smallestDistance = searchDistance*searchDistance;
+        int edgeClosestTo = -1;
+
+        for (int y = yMin; y <= yMax; y++){
+            for (int x = xMin; x <= xMax; x++){
+                int sectorId = sectors.sectorId(x, y);
+                int endNodeId = sectors.sectorEndNodeId(sectorId);
+
+                for (int i = sectors.sectorStartNodeId(sectorId); i < endNodeId; i++){
+                    double fromE = Q28_4.asDouble(nodes.nodeEQ28_4(i));
+                    double fromN = Q28_4.asDouble(nodes.nodeNQ28_4(i));
+
+                    for (int j = 0; j < nodes.outDegree(i); j++){
+                        int edgeId = nodes.edgeId(i, j);
+                        int toNodeId = edges.targetNodeId(edgeId);
+                        double toE = Q28_4.asDouble(nodes.nodeEQ28_4(toNodeId));
+                        double toN = Q28_4.asDouble(nodes.nodeNQ28_4(toNodeId));
+
+                        // Fraction de l'arête à laquelle se trouve la projection, ramenée sur le segment
+                        double squaredSegmentLength = Math2.squaredNorm(toE - fromE, toN - fromN);
+                        double fraction = squaredSegmentLength == 0
+                                ? 0
+                                : Math2.clamp(0, Math2.dotProduct(e - fromE, n - fromN, toE - fromE, toN - fromN)
+                                / squaredSegmentLength, 1);
+
+                        double distance = Math2.squaredNorm(
+                                Math2.interpolate(fromE, toE, fraction) - e,
+                                Math2.interpolate(fromN, toN, fraction) - n);
+
+                        if (distance < smallestDistance){
+                            smallestDistance = distance;
+                            edgeClosestTo = edgeId;
+                            projection[0] = fraction * edges.length(edgeId);
+                            projection[1] = Math.sqrt(distance);
+                        }
+                    }
+                }
+            }
+        }
+        return edgeClosestTo;
+    }
+
+    /**
+     * Retourne l'identité du secteur contenant le point donné, ramené dans la grille des secteurs
+     * s'il se trouve en dehors
+     * @param point le point
+     * @return l'identité du secteur, entre 0 (inclus) et GraphSectors.SECTOR_COUNT (exclus)
+     */
+    public int sectorIdAt(PointCh point){
+        return sectors.sectorId(sectors.sectorX(point.e()), sectors.sectorY(point.n()));
+    }
+
+    /**
+     * Retourne le nombre total d'arêtes dans le graphe
+     * @return le nombre total d'arêtes
+     */
+    public int edgeCount(){
+        return edges.count();
+    }
+
+    /**
+     * Retourne l'identité du nœud de départ de l'arête d'identité donnée
+     * @param edgeId identite de l'arete
+     * @return l'identite du noeud
+     */
+    public int edgeSourceNodeId(int edgeId){
+        return inEdges().sourceNodeId(edgeId);
+    }
+
     /**
      * Retourne l'identité du nœud destination de l'arête d'identité donnée
      * @param edgeId identite de l'arete
@@ -191,14 +486,67 @@ public final class Graph {
     }
 
     /**
-     * Retourne l'ensemble des attributs OSM attachés à l'arête d'identité donnée
+     * Retourne l'ensemble des attributs OSM attachés à l'arête d'identité donnée ; chaque ensemble n'est
+     * décodé qu'une fois, de sorte qu'aucun objet n'est créé lors des appels suivants
      * @param edgeId identite de l'arete
      * @return l'ensemble des attributs OSM
      */
     public AttributeSet edgeAttributes(int edgeId){
+        return attributeSet(edges.attributesIndex(edgeId));
+    }
+
+    /**
+     * Retourne le vecteur de bits de l'ensemble des attributs OSM attachés à l'arête d'identité donnée,
+     * sans créer d'AttributeSet ; le bit d'index b vaut 1 si et seulement si l'attribut d'ordinal b en fait partie
+     * @param edgeId identite de l'arete
+     * @return le vecteur de bits de l'ensemble des attributs OSM
+     */
+    public long edgeAttributeBits(int edgeId){
         return attributeSets.get(edges.attributesIndex(edgeId));
     }
 
+    /**
+     * Retourne l'index, dans la table des ensembles d'attributs, de l'ensemble attaché à l'arête d'identité donnée
+     * @param edgeId identite de l'arete
+     * @return l'index de l'ensemble d'attributs
+     */
+    public int edgeAttributesIndex(int edgeId){
+        return edges.attributesIndex(edgeId);
+    }
+
+    /**
+     * Retourne le nombre d'ensembles d'attributs distincts du graphe
+     * @return le nombre d'ensembles d'attributs
+     */
+    public int attributeSetCount(){
+        return attributeSets.capacity();
+    }
+
+    /**
+     * Retourne l'ensemble d'attributs d'index donné
+     * @param attributesIndex index de l'ensemble d'attributs
+     * @return l'ensemble d'attributs
+     */
+    public AttributeSet attributeSet(int attributesIndex){
+        AttributeSet attributeSet = decodedAttributeSets[attributesIndex];
+
+        // Deux fils d'exécution peuvent décoder le même ensemble, l'un remplaçant l'autre par un ensemble égal
+        if (attributeSet == null){
+            attributeSet = new AttributeSet(attributeBits(attributesIndex));
+            decodedAttributeSets[attributesIndex] = attributeSet;
+        }
+        return attributeSet;
+    }
+
+    /**
+     * Retourne le vecteur de bits de l'ensemble d'attributs d'index donné, sans créer d'AttributeSet
+     * @param attributesIndex index de l'ensemble d'attributs
+     * @return le vecteur de bits de l'ensemble d'attributs
+     */
+    public long attributeBits(int attributesIndex){
+        return attributeSets.get(attributesIndex);
+    }
+
     /**
      * Retourne la longueur, en mètres, de l'arête d'identité donnée
      * @param edgeId identite de l'arete
@@ -218,16 +566,99 @@ public final class Graph {
     }
 
     /**
-     * Retourne le profil en long de l'arête d'identité donnée sous la forme d'une fonction
+     * Retourne le profil en long de l'arête d'identité donnée sous la forme d'une fonction ; le profil
+     * n'est décodé que s'il ne se trouve pas dans le cache des profils
      * @param edgeId identite de l'arete
      * @return le profil en long de l'arête et Double.NaN si l'arete ne possede pas de profile
      */
     public DoubleUnaryOperator edgeProfile(int edgeId){
         return (edges.hasProfile(edgeId)) ?
-                Functions.sampled(edges.profileSamples(edgeId), edges.length(edgeId)) :
+                profileCache.profile(edges, edgeId) :
                 Functions.constant(Double.NaN);
     }
 
+    /**
+     * Retourne le profil en long de l'arête d'identité donnée sous la forme d'une vue sur ses échantillons
+     * stockés, qui ne décode que les échantillons nécessaires à chaque évaluation et ne crée aucun objet ;
+     * préférable à edgeProfile pour n'évaluer que quelques altitudes d'une arête
+     * @param edgeId identite de l'arete
+     * @return le profil en long de l'arête et Double.NaN si l'arete ne possede pas de profile
+     */
+    public DoubleUnaryOperator edgeProfileView(int edgeId){
+        return edges.profileView(edgeId);
+    }
+
+    /**
+     * Retourne l'altitude à la position donnée le long de l'arête d'identité donnée, égale à celle de la vue
+     * retournée par edgeProfileView, sans créer aucun objet
+     * @param edgeId identite de l'arete
+     * @param position position le long de l'arête, en mètres
+     * @return l'altitude à cette position et Double.NaN si l'arete ne possede pas de profile
+     */
+    public double edgeElevationAt(int edgeId, double position){
+        return edges.elevationAt(edgeId, position);
+    }
+
+    /**
+     * Retourne le cache des profils en long décodés, qui permet d'en consulter les statistiques
+     * @return le cache des profils
+     */
+    public ProfileCache profileCache(){
+        return profileCache;
+    }
+
+    /**
+     * Methode outil qui calcule le carré de la distance entre des coordonnées et le noeud donné,
+     * à partir de ses coordonnées Q28.4
+     * @param e coordonnée est
+     * @param n coordonnée nord
+     * @param nodeId identite du noeud
+     * @return le carré de la distance
+     */
+    private double squaredDistanceToNode(double e, double n, int nodeId){
+        return Math2.squaredNorm(
+                Q28_4.asDouble(nodes.nodeEQ28_4(nodeId)) - e,
+                Q28_4.asDouble(nodes.nodeNQ28_4(nodeId)) - n);
+    }
+
+    /**
+     * Methode outil qui retourne la longueur de la plus longue arête du graphe, en la calculant lors du
+     * premier appel ; deux appels simultanés peuvent la calculer chacun, avec le même résultat
+     * @return la longueur, en mètres
+     */
+    private double maxEdgeLength(){
+        double result = maxEdgeLength;
+
+        if (result < 0){
+            result = 0;
+            for (int edgeId = 0; edgeId < edges.count(); edgeId++){
+                result = Math.max(result, edges.length(edgeId));
+            }
+            maxEdgeLength = result;
+        }
+        return result;
+    }
+
+    /**
+     * Methode outil qui retourne l'adjacence inverse du graphe, en la construisant lors du premier
+     * appel afin que seuls les utilisateurs des arêtes entrantes paient son coût en temps et en mémoire
+     * @return l'adjacence inverse
+     */
+    private GraphInEdges inEdges(){
+        GraphInEdges result = inEdges;
+
+        if (result == null){
+            synchronized (this){
+                result = inEdges;
+                if (result == null){
+                    result = GraphInEdges.of(nodes, edges);
+                    inEdges = result;
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Methode outil qui permet d'extraire un buffer a partir d'un FileChannel passé en argument
      * @param channel FileChannel pour lequel on voudrais extraire le buffer
@@ -238,4 +669,62 @@ public final class Graph {
         return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
     }
 
+    /**
+     * Mode de chargement du graphe
+     */
+    public enum LoadMode {
+
+        /**
+         * Projection des fichiers en mémoire, sans vérification ; les pages sont lues à leur premier accès
+         */
+        LAZY,
+
+        /**
+         * Projection et vérification de la cohérence des fichiers
+         */
+        VALIDATED,
+
+        /**
+         * Projection, lecture préalable de toutes les pages des fichiers, l'un après l'autre, puis vérification,
+         * de sorte que les premières recherches ne subissent pas de défauts de page
+         */
+        WARMED,
+
+        /**
+         * Comme WARMED, mais les fichiers sont lus en parallèle
+         */
+        WARMED_IN_PARALLEL
+    }
+
+    /**
+     * Enregistrement qui représente le rapport du chargement d'un graphe
+     * @param mode mode de chargement
+     * @param byteCount taille totale des fichiers, en bytes
+     * @param mappingNanos durée de la projection des fichiers en mémoire, en nanosecondes
+     * @param warmUpNanos durée de la lecture préalable des pages, en nanosecondes
+     * @param validationNanos durée de la construction et de la vérification du graphe, en nanosecondes
+     */
+    public record LoadReport(LoadMode mode, long byteCount, long mappingNanos, long warmUpNanos,
+                             long validationNanos) {
+
+        /**
+         * Retourne la durée totale du chargement
+         * @return la durée totale, en nanosecondes
+         */
+        public long totalNanos() {
+            return mappingNanos + warmUpNanos + validationNanos;
+        }
+
+        /**
+         * Retourne une description lisible du rapport
+         * @return la description
+         */
+        @Override
+        public String toString() {
+            return String.format("graphe de %.1f Mo chargé en mode %s en %.1f ms "
+                            + "(projection %.1f ms, préchargement %.1f ms, vérification %.1f ms)",
+                    byteCount / 1e6, mode, totalNanos() / 1e6,
+                    mappingNanos / 1e6, warmUpNanos / 1e6, validationNanos / 1e6);
+        }
+    }
 }
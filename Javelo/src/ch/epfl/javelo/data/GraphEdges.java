@@ -1,11 +1,14 @@
 package ch.epfl.javelo.data;
 
 import ch.epfl.javelo.Bits;
+import ch.epfl.javelo.Functions;
 import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
 import ch.epfl.javelo.Q28_4;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
+import java.util.function.DoubleUnaryOperator;
 
 
 /**
@@ -62,6 +65,14 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
     private static final int COMPRESSED_Q0_4_PROFILE = 3;
 
 
+    /**
+     * Compte le nombre d'arêtes dans le tableau
+     * @return le nombre d'arêtes
+     */
+    public int count() {
+        return edgesBuffer.capacity() / EDGES_BYTES;
+    }
+
     /**
      * Verifie si l'arête d'identité donnée va dans le sens inverse
      * de la voie OSM dont elle provient
@@ -124,33 +135,66 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
      * @return le tableau des échantillons
      */
     public float[] profileSamples(int edgeId) {
+        float[] samples = storedProfileSamples(edgeId);
 
+        return (isInverted(edgeId))? reverse(samples) : samples;
+    }
 
-        float[] samples = new float[numberOfSamples(edgeId)];
-        float firstSample =  Q28_4.asFloat(Short.toUnsignedInt(elevations.get(getFirstSampleId(edgeId))));
+    /**
+     * Retourne le tableau des échantillons du profil de l'arête d'identité donnée dans l'ordre où ils sont
+     * stockés, c.-à-d. dans le sens de la voie OSM, qui est partagé par l'arête et son arête de sens opposé
+     * @param edgeId identité de l'arete
+     * @return le tableau des échantillons, vide si l'arête ne possède pas de profil
+     */
+    float[] storedProfileSamples(int edgeId) {
+
+        int type = getType(edgeId);
+        if (type == NO_PROFILE) return new float[0];
 
-        switch (getType(edgeId)){
+        int firstSampleId = getFirstSampleId(edgeId);
+        float[] samples = new float[numberOfSamples(edgeId)];
 
-            case NO_PROFILE:
-                return new float[0];
+        switch (type){
 
             case DECOMPRESSED_PROFILE:
-                for (int i = 0; i < numberOfSamples(edgeId); i++) {
-                    samples[i] = Q28_4.asFloat(Short.toUnsignedInt(elevations.get(getFirstSampleId(edgeId) + i)));
+                for (int i = 0; i < samples.length; i++) {
+                    samples[i] = Q28_4.asFloat(Short.toUnsignedInt(elevations.get(firstSampleId + i)));
                 }
 
                 break;
 
             case COMPRESSED_Q4_4_PROFILE:
-                fillSamples(COMPRESSED_Q4_4_PROFILE,samples,edgeId,firstSample);
-
-                break;
-
             case COMPRESSED_Q0_4_PROFILE:
-              fillSamples(COMPRESSED_Q0_4_PROFILE,samples,edgeId,firstSample);
+                decodeSamples(bitsPerDifference(type), firstSampleId, samples.length, samples);
         }
 
-        return (isInverted(edgeId))? reverse(samples) : samples;
+        return samples;
+    }
+
+    /**
+     * Retourne le profil en long de l'arête d'identité donnée sous la forme d'une vue qui évalue l'altitude
+     * directement à partir des échantillons stockés, sans les copier dans un tableau ; chaque évaluation
+     * se fait comme par elevationAt
+     * @param edgeId identité de l'arete
+     * @return le profil en long de l'arête, Double.NaN si l'arête ne possède pas de profil
+     */
+    public DoubleUnaryOperator profileView(int edgeId) {
+        return hasProfile(edgeId) ? new ProfileView(edgeId) : Functions.constant(Double.NaN);
+    }
+
+    /**
+     * Retourne l'altitude à la position donnée le long de l'arête d'identité donnée, égale à celle du profil
+     * retourné par profileView, sans créer aucun objet ; seul l'échantillon stocké précédant la position est
+     * décodé, en une passe pour un profil compressé, l'échantillon suivant en étant déduit par une différence
+     * @param edgeId identité de l'arete
+     * @param position position le long de l'arête, en mètres
+     * @return l'altitude à cette position, Double.NaN si l'arête ne possède pas de profil
+     */
+    public double elevationAt(int edgeId, double position) {
+        return hasProfile(edgeId)
+                ? elevationAt(getType(edgeId), getFirstSampleId(edgeId), numberOfSamples(edgeId),
+                        length(edgeId), isInverted(edgeId), position)
+                : Double.NaN;
     }
 
     /**
@@ -163,20 +207,109 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
     }
 
     /**
-     * Methode outil qui permet de remplir le tableau d'echantillions pour ceux du type 2 et 3
-     * @param type type de l'echantillion
-     * @param samples tableau a remplir
-     * @param edgeId identite de l'arete
-     * @param firstSample premier echantillion
+     * Methode outil qui evalue a la position donnee le profil decrit par les attributs donnes, avec la meme
+     * semantique que Functions.sampled appliquee aux echantillons de l'arete ; les deux echantillons
+     * entourant la position sont consecutifs parmi les echantillons stockes, le premier des deux dans l'ordre
+     * de stockage etant decode et le second en etant deduit
+     * @param type type du profil
+     * @param firstSampleId index du premier echantillon du profil
+     * @param sampleCount nombre d'echantillons du profil
+     * @param length longueur de l'arete
+     * @param inverted vrai si l'arete va dans le sens inverse de celui des echantillons stockes
+     * @param position position le long de l'arete
+     * @return l'altitude a cette position
      */
-    private void fillSamples(int type, float[] samples, int edgeId, float firstSample){
+    private double elevationAt(int type, int firstSampleId, int sampleCount, double length, boolean inverted,
+                               double position) {
+        double placeInSpan = (Math2.clamp(0, position, length) * (sampleCount - 1)) / length;
+
+        int placeInSpanFloor = (int) placeInSpan;
+        int placeInSpanCeil = (int) Math.ceil(placeInSpan);
+
+        int storedIndex = inverted ? sampleCount - 1 - placeInSpanCeil : placeInSpanFloor;
+        float storedSample = storedSample(type, firstSampleId, storedIndex);
+
+        if (placeInSpanFloor == placeInSpanCeil) return storedSample;
 
-            samples[0] = firstSample;
-            for (int i = 1; i < numberOfSamples(edgeId); i ++) {
+        float nextStoredSample = (type == DECOMPRESSED_PROFILE)
+                ? storedSample(type, firstSampleId, storedIndex + 1)
+                : storedSample + difference(bitsPerDifference(type), firstSampleId, storedIndex + 1);
 
-                samples[i] = samples[i - 1] + Q28_4.asFloat(Bits.extractSigned(elevations.
-                        get(Math2.ceilDiv(i, (type==COMPRESSED_Q4_4_PROFILE)? 2 : 4)+getFirstSampleId(edgeId)), (type==COMPRESSED_Q4_4_PROFILE)?startIndexType2(i) : startIndexType3(i),(type==COMPRESSED_Q4_4_PROFILE)? Byte.SIZE : Byte.SIZE/2));
+        return inverted
+                ? Math2.interpolate(nextStoredSample, storedSample, placeInSpan - placeInSpanFloor)
+                : Math2.interpolate(storedSample, nextStoredSample, placeInSpan - placeInSpanFloor);
+    }
+
+    /**
+     * Methode outil qui decode l'echantillon d'index donne dans l'ordre de stockage ; l'echantillon d'un
+     * profil compresse est obtenu en ajoutant au premier les differences qui le precedent, dans le meme
+     * ordre que profileSamples afin d'obtenir exactement la meme valeur
+     * @param type type du profil
+     * @param firstSampleId index du premier echantillon du profil
+     * @param storedIndex index de l'echantillon dans l'ordre de stockage
+     * @return l'echantillon
+     */
+    private float storedSample(int type, int firstSampleId, int storedIndex) {
+        return (type == DECOMPRESSED_PROFILE)
+                ? Q28_4.asFloat(Short.toUnsignedInt(elevations.get(firstSampleId + storedIndex)))
+                : decodeSamples(bitsPerDifference(type), firstSampleId, storedIndex + 1, null);
+    }
+
+    /**
+     * Methode outil qui decode les premiers echantillons d'un profil de type 2 ou 3 en une seule passe :
+     * chaque valeur de 16 bits n'est lue qu'une fois, puis ses differences sont extraites de la plus
+     * significative a la moins significative et additionnees a l'echantillon precedent
+     * @param bitsPerDifference nombre de bits de chaque difference, 8 pour le type 2 et 4 pour le type 3
+     * @param firstSampleId index du premier echantillion
+     * @param count nombre d'echantillons a decoder, au moins 1
+     * @param samples tableau a remplir des echantillons decodes, null si seul le dernier est utile
+     * @return le dernier echantillon decode
+     */
+    private float decodeSamples(int bitsPerDifference, int firstSampleId, int count, float[] samples){
+
+        int differencesPerShort = Short.SIZE / bitsPerDifference;
+        int shift = Integer.SIZE - bitsPerDifference;
+
+        float sample = Q28_4.asFloat(Short.toUnsignedInt(elevations.get(firstSampleId)));
+        if (samples != null) samples[0] = sample;
+
+        int i = 1;
+        for (int shortId = firstSampleId + 1; i < count; shortId++) {
+
+            int differences = elevations.get(shortId) << Short.SIZE;
+            for (int j = 0; j < differencesPerShort && i < count; j++, i++) {
+                sample += Q28_4.asFloat(differences >> shift);
+                differences <<= bitsPerDifference;
+                if (samples != null) samples[i] = sample;
             }
+        }
+
+        return sample;
+    }
+
+    /**
+     * Methode outil qui decode la difference entre l'echantillon d'index donne d'un profil compresse
+     * et l'echantillon precedent
+     * @param bitsPerDifference nombre de bits de chaque difference, 8 pour le type 2 et 4 pour le type 3
+     * @param firstSampleId index du premier echantillon du profil
+     * @param i l'index de l'echantillon, au moins 1
+     * @return la difference d'altitude, en metres
+     */
+    private float difference(int bitsPerDifference, int firstSampleId, int i){
+        int differencesPerShort = Short.SIZE / bitsPerDifference;
+        int start = (differencesPerShort - 1 - (i - 1) % differencesPerShort) * bitsPerDifference;
+
+        return Q28_4.asFloat(Bits.extractSigned(elevations.get(firstSampleId + 1 + (i - 1) / differencesPerShort),
+                start, bitsPerDifference));
+    }
+
+    /**
+     * Methode outil qui retourne le nombre de bits des differences d'un profil compresse
+     * @param type type du profil, 2 ou 3
+     * @return 8 pour le type 2 et 4 pour le type 3
+     */
+    private int bitsPerDifference(int type) {
+        return (type == COMPRESSED_Q4_4_PROFILE) ? Byte.SIZE : Byte.SIZE / 2;
     }
 
     /**
@@ -203,30 +336,10 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
      * @param edgeId identité de l'arête
      * @return l'index du premier échantillon
      */
-    private int getFirstSampleId(int edgeId) {
+    int getFirstSampleId(int edgeId) {
         return Bits.extractUnsigned(profileIds.get(edgeId),0, Integer.SIZE - 2);
     }
 
-    /**
-     * Methode outil specifique aux aretes de types 2 qui permet le choix de
-     * l'index dans le short du debut du vecteur de 8 bits extrait
-     * @param i l'index de l'echantillon
-     * @return l'index du debut de l'extraction
-     */
-    private int startIndexType2(int i){
-        return (i%2 == 0)? 0 : 8;
-    }
-
-    /**
-     * Methode outil specifique aux aretes de types 3 qui permet le choix de
-     * l'index dans le short du debut du vecteur de 4 bits extrait
-     * @param i l'index de l'echantillon
-     * @return l'index du debut de l'extraction
-     */
-    private int startIndexType3(int i){
-        return 12 - 4*((i - 1)%4);
-    }
-
     /**
      * Methode permettant d'inverser un tableau
      * @param samples tableau d'echantillons qu'on voudrait inverser
@@ -243,4 +356,59 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
         return reversed;
     }
 
+    /**
+     * Classe imbriquee qui represente la vue du profil en long d'une arete, dont les valeurs sont les memes
+     * que celles de Functions.sampled appliquee au tableau des echantillons de l'arete
+     */
+    private final class ProfileView implements DoubleUnaryOperator {
+
+        /**
+         * Type du profil
+         */
+        private final int type;
+
+        /**
+         * Index du premier echantillon du profil
+         */
+        private final int firstSampleId;
+
+        /**
+         * Nombre d'echantillons du profil
+         */
+        private final int sampleCount;
+
+        /**
+         * Longueur de l'arete
+         */
+        private final double length;
+
+        /**
+         * Vrai si l'arete va dans le sens inverse de celui des echantillons stockes
+         */
+        private final boolean inverted;
+
+        /**
+         * Constructeur de la vue du profil de l'arete donnee
+         * @param edgeId identite de l'arete, qui doit posseder un profil
+         */
+        private ProfileView(int edgeId) {
+            this.type = getType(edgeId);
+            this.firstSampleId = getFirstSampleId(edgeId);
+            this.sampleCount = numberOfSamples(edgeId);
+            this.length = length(edgeId);
+            this.inverted = isInverted(edgeId);
+
+            Preconditions.checkArgument(sampleCount >= 2 && length > 0);
+        }
+
+        /**
+         * Méthode qui calcule l'interpolation linéaire des deux echantillons entourant la position donnee
+         * @param operand position le long de l'arete
+         * @return l'altitude a cette position
+         */
+        @Override
+        public double applyAsDouble(double operand) {
+            return elevationAt(type, firstSampleId, sampleCount, length, inverted, operand);
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package ch.epfl.javelo.data;
+
+/**
+ * Classe qui représente l'adjacence inverse du graphe JaVelo, c'est-à-dire les arêtes
+ * entrant dans chaque noeud, ainsi que le noeud de départ de chaque arête.
+ * Elle n'est pas stockée dans les fichiers du graphe et doit donc être construite
+ * à partir des noeuds et des arêtes.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+final class GraphInEdges {
+
+    /**
+     * Index, dans inEdgeIds, de la première arête entrant dans chaque noeud ;
+     * le tableau contient une case de plus que le nombre de noeuds
+     */
+    private final int[] firstInEdge;
+
+    /**
+     * Identités des arêtes, regroupées par noeud de destination
+     */
+    private final int[] inEdgeIds;
+
+    /**
+     * Noeud de départ de chaque arête, indexé par l'identité de l'arête
+     */
+    private final int[] edgeSources;
+
+    /**
+     * Constructeur privé, l'adjacence inverse étant construite par la méthode of
+     * @param firstInEdge index de la première arête entrant dans chaque noeud
+     * @param inEdgeIds identités des arêtes regroupées par noeud de destination
+     * @param edgeSources noeud de départ de chaque arête
+     */
+    private GraphInEdges(int[] firstInEdge, int[] inEdgeIds, int[] edgeSources) {
+        this.firstInEdge = firstInEdge;
+        this.inEdgeIds = inEdgeIds;
+        this.edgeSources = edgeSources;
+    }
+
+    /**
+     * Construit l'adjacence inverse des noeuds et arêtes donnés, en temps linéaire
+     * @param nodes noeuds du graphe
+     * @param edges arêtes du graphe
+     * @return l'adjacence inverse
+     */
+    static GraphInEdges of(GraphNodes nodes, GraphEdges edges) {
+        int nodeCount = nodes.count();
+        int edgeCount = edges.count();
+
+        int[] firstInEdge = new int[nodeCount + 1];
+        int[] inEdgeIds = new int[edgeCount];
+        int[] edgeSources = new int[edgeCount];
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < nodes.outDegree(nodeId); i++) {
+                int edgeId = nodes.edgeId(nodeId, i);
+
+                edgeSources[edgeId] = nodeId;
+                firstInEdge[edges.targetNodeId(edgeId) + 1] += 1;
+            }
+        }
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            firstInEdge[nodeId + 1] += firstInEdge[nodeId];
+        }
+
+        int[] nextSlot = new int[nodeCount];
+        System.arraycopy(firstInEdge, 0, nextSlot, 0, nodeCount);
+
+        for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+            inEdgeIds[nextSlot[edges.targetNodeId(edgeId)]++] = edgeId;
+        }
+
+        return new GraphInEdges(firstInEdge, inEdgeIds, edgeSources);
+    }
+
+    /**
+     * Retourne le nombre d'arêtes entrant dans le noeud d'identité donnée
+     * @param nodeId identité du noeud
+     * @return le nombre d'arêtes entrantes
+     */
+    int inDegree(int nodeId) {
+        return firstInEdge[nodeId + 1] - firstInEdge[nodeId];
+    }
+
+    /**
+     * Retourne l'identité de la edgeIndex-ième arête entrant dans le noeud d'identité donnée
+     * @param nodeId identité du noeud
+     * @param edgeIndex index de l'arête parmi les arêtes entrantes du noeud
+     * @return l'identité de l'arête
+     */
+    int edgeId(int nodeId, int edgeIndex) {
+        assert edgeIndex >= 0 && edgeIndex < inDegree(nodeId);
+
+        return inEdgeIds[firstInEdge[nodeId] + edgeIndex];
+    }
+
+    /**
+     * Retourne l'identité du noeud de départ de l'arête d'identité donnée
+     * @param edgeId identité de l'arête
+     * @return l'identité du noeud de départ
+     */
+    int sourceNodeId(int edgeId) {
+        return edgeSources[edgeId];
+    }
+}
@@ -86,6 +86,26 @@ public record GraphNodes(IntBuffer buffer) {
         return Q28_4.asDouble(extractNorthCoordinate(nodeId));
     }
 
+    /**
+     * Retourne la coordonnée est du noeud Javelo au format Q28.4, sans vérifier la validité
+     * de son identité au-delà des bornes du tableau ; destinée aux parcours intensifs des noeuds
+     * @param nodeId Identité du noeud
+     * @return la coordonnée est du noeud, au format Q28.4
+     */
+    public int nodeEQ28_4(int nodeId){
+        return extractEastCoordinate(nodeId);
+    }
+
+    /**
+     * Retourne la coordonnée nord du noeud Javelo au format Q28.4, sans vérifier la validité
+     * de son identité au-delà des bornes du tableau ; destinée aux parcours intensifs des noeuds
+     * @param nodeId Identité du noeud
+     * @return la coordonnée nord du noeud, au format Q28.4
+     */
+    public int nodeNQ28_4(int nodeId){
+        return extractNorthCoordinate(nodeId);
+    }
+
     /**
      * Détermine le nombre d'arêtes qui sortent du noeud Javelo
      * @param nodeId Identité du noeud
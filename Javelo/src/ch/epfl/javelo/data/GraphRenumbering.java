@@ -0,0 +1,321 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.projection.SwissBounds;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Outil hors ligne qui renumérote les noeuds du graphe le long d'une courbe de Hilbert couvrant la Suisse,
+ * afin que les noeuds proches, et donc explorés ensemble par une recherche, soient aussi proches en mémoire.
+ * Les arêtes sont renumérotées dans l'ordre de leur noeud de départ et les profils dans l'ordre de leur
+ * première arête, de sorte que la relaxation des voisins d'un noeud lise des zones contiguës des fichiers.
+ * La courbe est d'ordre 16 sur une grille dont chaque secteur occupe un bloc aligné de 512 × 512 cellules :
+ * une courbe de Hilbert parcourant chaque bloc aligné d'un seul tenant, les noeuds d'un secteur restent
+ * consécutifs, comme l'exige sectors.bin.
+ * Les fichiers nodes.bin, sectors.bin, edges.bin, profile_ids.bin et elevations.bin sont réécrits dans
+ * le répertoire de destination, attributes.bin y est copié tel quel ; les fichiers précalculés à partir
+ * des identités des noeuds (repères, hiérarchie de contraction) doivent être reconstruits.
+ * Usage : GraphRenumbering répertoire-source répertoire-destination
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class GraphRenumbering {
+
+    /**
+     * Nombre de secteurs par côté de la grille des secteurs
+     */
+    private static final int SECTORS_PER_SIDE = 128;
+
+    /**
+     * Logarithme en base 2 du nombre de cellules de la courbe par côté d'un secteur
+     */
+    private static final int CELL_SHIFT = 9;
+
+    /**
+     * Nombre de cellules de la courbe par côté d'un secteur
+     */
+    private static final int CELLS_PER_SECTOR = 1 << CELL_SHIFT;
+
+    /**
+     * Ordre de la courbe de Hilbert, c.-à-d. logarithme en base 2 du nombre de cellules par côté de la grille
+     */
+    private static final int HILBERT_ORDER = 7 + CELL_SHIFT;
+
+    /**
+     * Nombre de bits réservés à l'identité d'un noeud dans les clés de tri
+     */
+    private static final int NODE_ID_BITS = 28;
+
+    /**
+     * Nombre de ints par noeud dans nodes.bin
+     */
+    private static final int NODE_INTS = 3;
+
+    /**
+     * Nombre de bytes par arête dans edges.bin
+     */
+    private static final int EDGE_BYTES = Integer.BYTES + 3 * Short.BYTES;
+
+    /**
+     * Nombre de bytes par secteur dans sectors.bin
+     */
+    private static final int SECTOR_BYTES = Integer.BYTES + Short.BYTES;
+
+    /**
+     * Constructeur privé car la classe est non instanciable
+     */
+    private GraphRenumbering() {}
+
+    /**
+     * Renumérote le graphe du répertoire source et écrit le résultat dans le répertoire de destination
+     * @param args répertoire source et répertoire de destination
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Preconditions.checkArgument(args.length == 2);
+
+        long start = System.nanoTime();
+        int nodeCount = renumber(Path.of(args[0]), Path.of(args[1]));
+
+        System.out.printf("%d noeuds renumérotés en %.1f s%n", nodeCount, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Renumérote le graphe du répertoire source le long d'une courbe de Hilbert et écrit ses fichiers
+     * dans le répertoire de destination, qui doit être différent du répertoire source
+     * @param source répertoire du graphe à renuméroter
+     * @param target répertoire dans lequel écrire le graphe renuméroté
+     * @return le nombre de noeuds du graphe
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si les deux répertoires sont identiques
+     */
+    public static int renumber(Path source, Path target) throws IOException {
+        Files.createDirectories(target);
+        Preconditions.checkArgument(!Files.isSameFile(source, target));
+
+        IntBuffer nodes = mapForReading(source.resolve("nodes.bin")).asIntBuffer();
+        ByteBuffer sectors = mapForReading(source.resolve("sectors.bin"));
+        ByteBuffer edges = mapForReading(source.resolve("edges.bin"));
+        IntBuffer profileIds = mapForReading(source.resolve("profile_ids.bin")).asIntBuffer();
+        ShortBuffer elevations = mapForReading(source.resolve("elevations.bin")).asShortBuffer();
+
+        GraphNodes graphNodes = new GraphNodes(nodes);
+        GraphSectors graphSectors = new GraphSectors(sectors);
+        GraphEdges graphEdges = new GraphEdges(edges, profileIds, elevations);
+
+        int nodeCount = graphNodes.count();
+        Preconditions.checkArgument(nodeCount <= 1 << NODE_ID_BITS);
+
+        int[] order = hilbertOrder(graphNodes, graphSectors);
+        int[] newNodeIds = new int[nodeCount];
+        for (int newNodeId = 0; newNodeId < nodeCount; newNodeId++) {
+            newNodeIds[order[newNodeId]] = newNodeId;
+        }
+
+        ByteBuffer newNodesBytes = ByteBuffer.allocate(nodes.capacity() * Integer.BYTES);
+        ByteBuffer newEdges = ByteBuffer.allocate(edges.capacity());
+        ByteBuffer newProfileIdsBytes = ByteBuffer.allocate(profileIds.capacity() * Integer.BYTES);
+        ByteBuffer newElevationsBytes = ByteBuffer.allocate(elevations.capacity() * Short.BYTES);
+
+        IntBuffer newNodes = newNodesBytes.asIntBuffer();
+        IntBuffer newProfileIds = newProfileIdsBytes.asIntBuffer();
+        ShortBuffer newElevations = newElevationsBytes.asShortBuffer();
+
+        // Les arêtes d'une même voie partagent leur profil, qui n'est copié qu'une fois
+        int[] newFirstSampleIds = new int[elevations.capacity()];
+        Arrays.fill(newFirstSampleIds, -1);
+
+        int newEdgeId = 0;
+        for (int newNodeId = 0; newNodeId < nodeCount; newNodeId++) {
+            int nodeId = order[newNodeId];
+            int degree = graphNodes.outDegree(nodeId);
+
+            newNodes.put(NODE_INTS * newNodeId, graphNodes.nodeEQ28_4(nodeId));
+            newNodes.put(NODE_INTS * newNodeId + 1, graphNodes.nodeNQ28_4(nodeId));
+            newNodes.put(NODE_INTS * newNodeId + 2, (degree << NODE_ID_BITS) | newEdgeId);
+
+            for (int i = 0; i < degree; i++, newEdgeId++) {
+                int edgeId = graphNodes.edgeId(nodeId, i);
+
+                newEdges.put(newEdgeId * EDGE_BYTES, edges, edgeId * EDGE_BYTES, EDGE_BYTES);
+                int targetNodeId = newNodeIds[graphEdges.targetNodeId(edgeId)];
+                newEdges.putInt(newEdgeId * EDGE_BYTES,
+                        graphEdges.isInverted(edgeId) ? ~targetNodeId : targetNodeId);
+
+                newProfileIds.put(newEdgeId, copyProfile(graphEdges, profileIds.get(edgeId), edgeId,
+                        elevations, newElevations, newFirstSampleIds));
+            }
+        }
+
+        ByteBuffer newSectors = ByteBuffer.allocate(sectors.capacity());
+        for (int sectorId = 0; sectorId < SECTORS_PER_SIDE * SECTORS_PER_SIDE; sectorId++) {
+            int startNodeId = graphSectors.sectorStartNodeId(sectorId);
+            int endNodeId = graphSectors.sectorEndNodeId(sectorId);
+
+            // Les noeuds du secteur étant restés consécutifs, le premier est celui de plus petite identité
+            int newStartNodeId = 0;
+            if (startNodeId < endNodeId) {
+                newStartNodeId = Integer.MAX_VALUE;
+                for (int nodeId = startNodeId; nodeId < endNodeId; nodeId++) {
+                    newStartNodeId = Math.min(newStartNodeId, newNodeIds[nodeId]);
+                }
+            }
+            newSectors.putInt(sectorId * SECTOR_BYTES, newStartNodeId);
+            newSectors.putShort(sectorId * SECTOR_BYTES + Integer.BYTES, (short) (endNodeId - startNodeId));
+        }
+
+        write(target.resolve("nodes.bin"), newNodesBytes);
+        write(target.resolve("sectors.bin"), newSectors);
+        write(target.resolve("edges.bin"), newEdges);
+        write(target.resolve("profile_ids.bin"), newProfileIdsBytes);
+        write(target.resolve("elevations.bin"), newElevationsBytes.limit(newElevations.position() * Short.BYTES));
+        Files.copy(source.resolve("attributes.bin"), target.resolve("attributes.bin"),
+                StandardCopyOption.REPLACE_EXISTING);
+
+        return nodeCount;
+    }
+
+    /**
+     * Méthode outil qui retourne les identités des noeuds triées selon leur position sur la courbe de Hilbert ;
+     * la cellule d'un noeud est prise dans le secteur auquel sectors.bin l'attribue
+     * @param nodes les noeuds du graphe
+     * @param sectors les secteurs du graphe
+     * @return les identités des noeuds, dans leur nouvel ordre
+     */
+    private static int[] hilbertOrder(GraphNodes nodes, GraphSectors sectors) {
+        long[] keys = new long[nodes.count()];
+
+        for (int sectorY = 0; sectorY < SECTORS_PER_SIDE; sectorY++) {
+            for (int sectorX = 0; sectorX < SECTORS_PER_SIDE; sectorX++) {
+                int sectorId = sectors.sectorId(sectorX, sectorY);
+
+                for (int nodeId = sectors.sectorStartNodeId(sectorId);
+                     nodeId < sectors.sectorEndNodeId(sectorId); nodeId++) {
+                    int x = (sectorX << CELL_SHIFT)
+                            | cellInSector(nodes.nodeE(nodeId), SwissBounds.MIN_E, SwissBounds.WIDTH, sectorX);
+                    int y = (sectorY << CELL_SHIFT)
+                            | cellInSector(nodes.nodeN(nodeId), SwissBounds.MIN_N, SwissBounds.HEIGHT, sectorY);
+
+                    keys[nodeId] = (hilbertIndex(x, y) << NODE_ID_BITS) | nodeId;
+                }
+            }
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) (keys[i] & ((1L << NODE_ID_BITS) - 1));
+        }
+        return order;
+    }
+
+    /**
+     * Méthode outil qui retourne l'index, le long d'un côté de son secteur, de la cellule contenant
+     * la coordonnée donnée
+     * @param coordinate la coordonnée CH1903+
+     * @param min valeur minimale de la coordonnée en Suisse
+     * @param extent étendue de la coordonnée en Suisse
+     * @param sector index du secteur le long du même axe
+     * @return l'index de la cellule, entre 0 et 511
+     */
+    private static int cellInSector(double coordinate, double min, double extent, int sector) {
+        double positionInSector = (coordinate - min) / extent * SECTORS_PER_SIDE - sector;
+
+        return (int) Math2.clamp(0, positionInSector * CELLS_PER_SECTOR, CELLS_PER_SECTOR - 1);
+    }
+
+    /**
+     * Méthode outil qui retourne la position de la cellule donnée le long de la courbe de Hilbert d'ordre 16
+     * @param x abscisse de la cellule
+     * @param y ordonnée de la cellule
+     * @return la position de la cellule sur la courbe
+     */
+    private static long hilbertIndex(int x, int y) {
+        long index = 0;
+
+        for (int side = 1 << (HILBERT_ORDER - 1); side > 0; side >>= 1) {
+            int rx = (x & side) != 0 ? 1 : 0;
+            int ry = (y & side) != 0 ? 1 : 0;
+            index += (long) side * side * ((3 * rx) ^ ry);
+
+            // Rotation du quadrant afin que la sous-courbe y soit parcourue dans le bon sens
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = side - 1 - (x & (side - 1));
+                    y = side - 1 - (y & (side - 1));
+                }
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Méthode outil qui copie, lors de sa première rencontre, le profil d'une arête à la fin des nouvelles
+     * altitudes, et retourne l'identité de profil de l'arête renumérotée
+     * @param edges les arêtes du graphe
+     * @param profileId identité de profil de l'arête (type et premier échantillon)
+     * @param edgeId identité de l'arête
+     * @param elevations altitudes du graphe
+     * @param newElevations nouvelles altitudes
+     * @param newFirstSampleIds nouveau premier échantillon de chaque profil déjà copié, -1 sinon
+     * @return la nouvelle identité de profil de l'arête
+     */
+    private static int copyProfile(GraphEdges edges, int profileId, int edgeId, ShortBuffer elevations,
+                                   ShortBuffer newElevations, int[] newFirstSampleIds) {
+        int type = profileId >>> 30;
+        if (type == 0) return profileId;
+
+        int firstSampleId = profileId & ((1 << 30) - 1);
+
+        if (newFirstSampleIds[firstSampleId] == -1) {
+            newFirstSampleIds[firstSampleId] = newElevations.position();
+
+            int sampleCount = edges.numberOfSamples(edgeId);
+            int shortCount = type == 1 ? sampleCount : 1 + Math2.ceilDiv(sampleCount - 1, type == 2 ? 2 : 4);
+            newElevations.put(elevations.slice(firstSampleId, shortCount));
+        }
+        return (type << 30) | newFirstSampleIds[firstSampleId];
+    }
+
+    /**
+     * Méthode outil qui projette en mémoire, en lecture seule, le fichier donné
+     * @param path chemin d'accès du fichier
+     * @return le contenu du fichier
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    private static ByteBuffer mapForReading(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Méthode outil qui écrit dans le fichier donné, créé ou vidé au préalable, le contenu donné
+     * @param path chemin d'accès du fichier
+     * @param content contenu à écrire, de sa position à sa limite
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    private static void write(Path path, ByteBuffer content) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+    }
+}
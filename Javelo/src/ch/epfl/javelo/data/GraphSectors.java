@@ -21,6 +21,11 @@ public record GraphSectors(ByteBuffer buffer) {
      */
     private final static int SQRT_SECTORS = 128;
 
+    /**
+     * Nombre total de secteurs
+     */
+    public final static int SECTOR_COUNT = SQRT_SECTORS * SQRT_SECTORS;
+
     /**
      * Décalage d'index dans le tableau de l'identité du premier noeud du secteur
      */
@@ -55,7 +60,7 @@ public record GraphSectors(ByteBuffer buffer) {
         int yMin = yCoordinatesFromNorthCoordinate(nCoordinateMin);
         int yMax = yCoordinatesFromNorthCoordinate(nCoordinateMax);
 
-        int downLeftCornerSectorId = yMin*SQRT_SECTORS + xMin;
+        int downLeftCornerSectorId = sectorId(xMin, yMin);
 
         int width = xMax-xMin + 1;
         int height = yMax-yMin + 1;
@@ -72,6 +77,55 @@ public record GraphSectors(ByteBuffer buffer) {
         return sectors;
     }
 
+    /**
+     * Retourne l'abscisse, dans la grille des secteurs, de la colonne contenant la coordonnée est
+     * donnée, ramenée dans la grille si elle se trouve en dehors
+     * @param eastCoordinate Coordonnée est CH1903+
+     * @return l'abscisse de la colonne
+     */
+    public int sectorX(double eastCoordinate){
+        return xCoordinatesFromEastCoordinate(eastCoordinate);
+    }
+
+    /**
+     * Retourne l'ordonnée, dans la grille des secteurs, de la ligne contenant la coordonnée nord
+     * donnée, ramenée dans la grille si elle se trouve en dehors
+     * @param northCoordinate Coordonnée nord CH1903+
+     * @return l'ordonnée de la ligne
+     */
+    public int sectorY(double northCoordinate){
+        return yCoordinatesFromNorthCoordinate(northCoordinate);
+    }
+
+    /**
+     * Retourne l'identité du secteur se trouvant aux coordonnées données de la grille des secteurs
+     * @param x abscisse du secteur dans la grille
+     * @param y ordonnée du secteur dans la grille
+     * @return l'identité du secteur
+     */
+    public int sectorId(int x, int y){
+        return y*SQRT_SECTORS + x;
+    }
+
+    /**
+     * Retourne l'identité du premier noeud du secteur d'identité donnée
+     * @param sectorId Identité du secteur
+     * @return l'identité du premier noeud
+     */
+    public int sectorStartNodeId(int sectorId){
+        return buffer.getInt(sectorId*SECTOR_BYTES + OFFSET_STARTNODEID);
+    }
+
+    /**
+     * Retourne l'identité du noeud suivant le dernier noeud du secteur d'identité donnée
+     * @param sectorId Identité du secteur
+     * @return l'identité du noeud suivant le dernier noeud
+     */
+    public int sectorEndNodeId(int sectorId){
+        return sectorStartNodeId(sectorId) + Short.toUnsignedInt(buffer
+                .getShort(sectorId*SECTOR_BYTES + OFFSET_NUMBEROFNODES));
+    }
+
     /**
      * Methode outil qui permet de calculer les coordonnnés horizontales
      * dans le tableau de secteurs à partir d'une coordonnée est CH1903+
@@ -112,10 +166,7 @@ public record GraphSectors(ByteBuffer buffer) {
      * @return le Secteur
      */
     private Sector extractSector(int sectorId){
-        int startNodeId = buffer.getInt(sectorId*SECTOR_BYTES + OFFSET_STARTNODEID);
-
-        return new Sector(startNodeId, startNodeId+Short.toUnsignedInt(buffer
-                .getShort(sectorId*SECTOR_BYTES + OFFSET_NUMBEROFNODES)));
+        return new Sector(sectorStartNodeId(sectorId), sectorEndNodeId(sectorId));
     }
 
     /**
@@ -0,0 +1,119 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Math2;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+
+/**
+ * Classe qui vérifie la cohérence des fichiers d'un graphe chargé : la taille de chaque fichier
+ * ainsi que les invariants reliant les fichiers entre eux, afin qu'un fichier tronqué ou incohérent
+ * soit détecté au chargement plutôt que lors d'une recherche.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+final class GraphValidation {
+
+    /**
+     * Nombre de bytes par secteur dans sectors.bin
+     */
+    private static final int SECTOR_BYTES = Integer.BYTES + Short.BYTES;
+
+    /**
+     * Nombre de bytes par arête dans edges.bin
+     */
+    private static final int EDGE_BYTES = Integer.BYTES + 3 * Short.BYTES;
+
+    /**
+     * Nombre de ints par noeud dans nodes.bin
+     */
+    private static final int NODE_INTS = 3;
+
+    /**
+     * Constructeur privé car la classe est non instanciable
+     */
+    private GraphValidation() {}
+
+    /**
+     * Vérifie la taille des fichiers et les invariants reliant les noeuds, secteurs, arêtes et profils :
+     * les arêtes de chaque noeud et les noeuds de chaque secteur existent, chaque arête mène à un noeud
+     * existant et a un ensemble d'attributs existant, les échantillons de chaque profil se trouvent
+     * dans elevations.bin, et chaque ensemble d'attributs ne contient que des attributs existants
+     * @param nodes les noeuds du graphe
+     * @param sectors les secteurs du graphe
+     * @param edges les arêtes du graphe
+     * @param attributeSets les vecteurs de bits des ensembles d'attributs du graphe
+     * @throws IOException si l'un des fichiers est incohérent
+     */
+    static void validate(GraphNodes nodes, GraphSectors sectors, GraphEdges edges, LongBuffer attributeSets)
+            throws IOException {
+        int attributeSetCount = attributeSets.capacity();
+        int nodeCount = nodes.count();
+        int edgeCount = edges.count();
+        int elevationCount = edges.elevations().capacity();
+
+        check(nodes.buffer().capacity() % NODE_INTS == 0, "taille de nodes.bin invalide");
+        check(sectors.buffer().capacity() == GraphSectors.SECTOR_COUNT * SECTOR_BYTES,
+                "taille de sectors.bin invalide");
+        check(edges.edgesBuffer().capacity() % EDGE_BYTES == 0, "taille de edges.bin invalide");
+        check(edges.profileIds().capacity() == edgeCount, "taille de profile_ids.bin invalide");
+
+        for (int i = 0; i < attributeSetCount; i++) {
+            long bits = attributeSets.get(i);
+            check(bits >= 0 && bits < 1L << Attribute.COUNT, "ensemble d'attributs " + i + " invalide");
+        }
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            int degree = nodes.outDegree(nodeId);
+            check(degree == 0 || nodes.edgeId(nodeId, degree - 1) < edgeCount,
+                    "arêtes du noeud " + nodeId + " hors de edges.bin");
+        }
+
+        for (int sectorId = 0; sectorId < GraphSectors.SECTOR_COUNT; sectorId++) {
+            int startNodeId = sectors.sectorStartNodeId(sectorId);
+            int endNodeId = sectors.sectorEndNodeId(sectorId);
+            check(startNodeId == endNodeId || (0 <= startNodeId && endNodeId <= nodeCount),
+                    "noeuds du secteur " + sectorId + " hors de nodes.bin");
+        }
+
+        for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+            int targetNodeId = edges.targetNodeId(edgeId);
+            check(0 <= targetNodeId && targetNodeId < nodeCount,
+                    "noeud d'arrivée de l'arête " + edgeId + " hors de nodes.bin");
+            check(edges.attributesIndex(edgeId) < attributeSetCount,
+                    "attributs de l'arête " + edgeId + " hors de attributes.bin");
+
+            int profileId = edges.profileIds().get(edgeId);
+            int type = profileId >>> 30;
+            if (type != 0) {
+                int firstSampleId = profileId & ((1 << 30) - 1);
+                check(firstSampleId + sampleShortCount(type, edges, edgeId) <= elevationCount,
+                        "profil de l'arête " + edgeId + " hors de elevations.bin");
+            }
+        }
+    }
+
+    /**
+     * Méthode outil qui retourne le nombre de valeurs de 16 bits qu'occupe le profil d'une arête
+     * @param type type du profil, non nul
+     * @param edges les arêtes du graphe
+     * @param edgeId identité de l'arête
+     * @return le nombre de valeurs de 16 bits du profil
+     */
+    private static int sampleShortCount(int type, GraphEdges edges, int edgeId) {
+        int sampleCount = edges.numberOfSamples(edgeId);
+
+        return type == 1 ? sampleCount : 1 + Math2.ceilDiv(sampleCount - 1, type == 2 ? 2 : 4);
+    }
+
+    /**
+     * Méthode outil qui lève une exception si la condition donnée n'est pas satisfaite
+     * @param condition la condition
+     * @param message description de l'incohérence
+     * @throws IOException si la condition n'est pas satisfaite
+     */
+    private static void check(boolean condition, String message) throws IOException {
+        if (!condition) throw new IOException(message);
+    }
+}
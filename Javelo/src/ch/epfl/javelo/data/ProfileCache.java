@@ -0,0 +1,149 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Functions;
+import ch.epfl.javelo.Preconditions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Classe qui représente un cache borné des profils en long décodés des arêtes du graphe.
+ * Les profils sont identifiés par leur premier échantillon dans elevations.bin et conservés dans le sens
+ * de la voie OSM, de sorte qu'une arête et son arête de sens opposé partagent la même entrée ; le profil
+ * d'une arête inversée est obtenu en parcourant l'entrée depuis sa fin. Lorsque le cache est plein, le profil
+ * utilisé il y a le plus longtemps en est retiré. Les instances peuvent être partagées entre plusieurs fils
+ * d'exécution ; les profils absents du cache sont décodés hors du verrou.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class ProfileCache {
+
+    /**
+     * Nombre maximal de profils du cache utilisé par défaut par le graphe
+     */
+    public static final int DEFAULT_CAPACITY = 8_192;
+
+    /**
+     * Load Factor de la table associative du cache
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Nombre maximal de profils du cache
+     */
+    private final int capacity;
+
+    /**
+     * Profils du cache dans le sens de la voie OSM, par identité de leur premier échantillon et par ordre
+     * d'utilisation
+     */
+    private final Map<Integer, DoubleUnaryOperator> profiles;
+
+    /**
+     * Nombre de demandes ayant trouvé le profil dans le cache
+     */
+    private long hitCount;
+
+    /**
+     * Nombre de demandes n'ayant pas trouvé le profil dans le cache
+     */
+    private long missCount;
+
+    /**
+     * Nombre de profils retirés du cache faute de place
+     */
+    private long evictionCount;
+
+    /**
+     * Constructeur d'un cache vide
+     * @param capacity nombre maximal de profils du cache
+     * @throws IllegalArgumentException si la capacité n'est pas strictement positive
+     */
+    public ProfileCache(int capacity) {
+        Preconditions.checkArgument(capacity > 0);
+
+        this.capacity = capacity;
+        this.profiles = new LinkedHashMap<>(capacity, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, DoubleUnaryOperator> eldest) {
+                boolean evict = size() > ProfileCache.this.capacity;
+                if (evict) evictionCount += 1;
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Retourne le profil en long de l'arête donnée, qui doit en posséder un, en extrayant du cache son profil
+     * dans le sens de la voie OSM ou, s'il n'y est pas, en le décodant puis en l'y ajoutant
+     * @param edges les arêtes du graphe
+     * @param edgeId identité de l'arête
+     * @return le profil en long de l'arête
+     */
+    DoubleUnaryOperator profile(GraphEdges edges, int edgeId) {
+        Integer firstSampleId = edges.getFirstSampleId(edgeId);
+        DoubleUnaryOperator profile;
+
+        synchronized (this) {
+            profile = profiles.get(firstSampleId);
+            if (profile != null) hitCount += 1;
+            else missCount += 1;
+        }
+
+        if (profile == null) {
+            profile = Functions.sampled(edges.storedProfileSamples(edgeId), edges.length(edgeId));
+
+            synchronized (this) {
+                profiles.put(firstSampleId, profile);
+            }
+        }
+
+        if (!edges.isInverted(edgeId)) return profile;
+
+        DoubleUnaryOperator storedProfile = profile;
+        double length = edges.length(edgeId);
+        return position -> storedProfile.applyAsDouble(length - position);
+    }
+
+    /**
+     * Retourne le nombre de profils du cache
+     * @return le nombre de profils
+     */
+    public synchronized int size() {
+        return profiles.size();
+    }
+
+    /**
+     * Retourne le nombre de demandes ayant trouvé le profil dans le cache
+     * @return le nombre de succès
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Retourne le nombre de demandes n'ayant pas trouvé le profil dans le cache
+     * @return le nombre d'échecs
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Retourne le nombre de profils retirés du cache faute de place
+     * @return le nombre d'évictions
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Retourne la proportion des demandes ayant trouvé le profil dans le cache
+     * @return le taux de succès, NaN si aucune demande n'a été faite
+     */
+    public synchronized double hitRate() {
+        return (double) hitCount / (hitCount + missCount);
+    }
+}
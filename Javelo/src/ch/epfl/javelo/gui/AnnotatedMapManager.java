@@ -72,11 +72,12 @@ public final class AnnotatedMapManager {
         this.mouseProperty = new SimpleObjectProperty<>();
         this.mapViewParameters = new SimpleObjectProperty<>(INITIAL_MVP);
 
-        WaypointsManager waypointsManager=new WaypointsManager(graph, this.mapViewParameters,routeBean.waypointsProperty(),error);
+        WaypointsManager waypointsManager=new WaypointsManager(graph, this.mapViewParameters,routeBean.waypointsProperty(),error,
+                WaypointsManager.SnapMode.EDGE);
 
         this.baseMapManager = new BaseMapManager(tileManager,waypointsManager, this.mapViewParameters);
 
-        RouteManager routeManager = new RouteManager(routeBean, this.mapViewParameters);
+        RouteManager routeManager = new RouteManager(routeBean, this.mapViewParameters, waypointsManager::snap);
 
         this.pane=new StackPane(baseMapManager.pane(),routeManager.pane(),waypointsManager.pane());
         pane.getStylesheets().add("map.css");
@@ -2,8 +2,11 @@ package ch.epfl.javelo.gui;
 
 import ch.epfl.javelo.data.Graph;
 import ch.epfl.javelo.routing.CityBikeCF;
+import ch.epfl.javelo.routing.ContractionHierarchy;
 import ch.epfl.javelo.routing.CostFunction;
 import ch.epfl.javelo.routing.GpxGenerator;
+import ch.epfl.javelo.routing.LandmarkHeuristic;
+import ch.epfl.javelo.routing.PrecomputedCostFunction;
 import ch.epfl.javelo.routing.RouteComputer;
 import javafx.application.Application;
 import javafx.beans.binding.Bindings;
@@ -64,7 +67,8 @@ public final class JaVelo extends Application {
         String BNWTileServerHost = "stamen-tiles.a.ssl.fastly.net/toner";
         String pastelTileServerHost = "a.tile.openstreetmap.fr/hot";
 
-        Graph graph = Graph.loadFrom(Path.of("Javelo/javelo-data"));
+        Path graphBasePath = Path.of("Javelo/javelo-data");
+        Graph graph = Graph.loadFrom(graphBasePath, Graph.LoadMode.WARMED_IN_PARALLEL);
         String tileServerHost = "tile.openstreetmap.org";
 
         ObjectProperty<String> server = new SimpleObjectProperty<>();
@@ -75,7 +79,7 @@ public final class JaVelo extends Application {
 
 
 
-        CostFunction costFunction=new CityBikeCF(graph);
+        CostFunction costFunction = new PrecomputedCostFunction(graph, new CityBikeCF(graph));
 
 
         TileManager tileManager=new TileManager(cacheBasePath,server);
@@ -83,7 +87,7 @@ public final class JaVelo extends Application {
 
         Consumer<String> errorConsumer = errorManager::displayError;
 
-        RouteComputer routeComputer = new RouteComputer(graph,costFunction);
+        RouteComputer routeComputer = routeComputer(graph, costFunction, graphBasePath);
         RouteBean routeBean = new RouteBean(routeComputer);
         AnnotatedMapManager annotatedMapManager=new AnnotatedMapManager(graph,tileManager,routeBean,errorConsumer);
 
@@ -103,6 +107,7 @@ public final class JaVelo extends Application {
         MenuItem menuItem = new MenuItem("Exporter GPX");
         MenuItem menuItem1 = new MenuItem("Effacer les waypoints");
         MenuItem menuItem2 = new MenuItem("Inverser l'itineraire");
+        MenuItem optimizeOrder = new MenuItem("Optimiser l'ordre des waypoints");
         MenuItem defaut = new MenuItem("Défaut");
         MenuItem cyclisme = new MenuItem("Cyclisme");
         MenuItem noirEtBlanc = new MenuItem("Noir et blanc");
@@ -111,7 +116,7 @@ public final class JaVelo extends Application {
         MenuItem lightMode = new MenuItem("Light mode");
 
         menu.getItems().add(menuItem);
-        menu1.getItems().addAll(menuItem1,menuItem2);
+        menu1.getItems().addAll(menuItem1,menuItem2,optimizeOrder);
         menu2.getItems().addAll(defaut,cyclisme,noirEtBlanc,pastel);
         menu3.getItems().addAll(darkMode,lightMode);
 
@@ -182,6 +187,11 @@ public final class JaVelo extends Application {
         menuItem2.disableProperty().bind(Bindings.createBooleanBinding(()->routeBean.routeProperty().get() == null,routeBean.routeProperty()));
 
 
+        optimizeOrder.setOnAction(event -> routeBean.optimizeWaypointOrder(errorConsumer));
+
+        optimizeOrder.disableProperty().bind(Bindings.createBooleanBinding(()->routeBean.waypointsProperty().size() < 4,routeBean.waypointsProperty()));
+
+
 
         pastel.setOnAction(event ->{
             try {
@@ -254,6 +264,28 @@ public final class JaVelo extends Application {
     }
 
 
+    /**
+     * Méthode outil qui crée le calculateur d'itinéraires le plus rapide permis par les fichiers
+     * précalculés du répertoire du graphe : hiérarchie de contraction, sinon heuristique ALT,
+     * sinon recherche A* à vol d'oiseau
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param graphBasePath répertoire du graphe
+     * @return le calculateur d'itinéraires
+     * @throws IOException en cas d'erreur de lecture des fichiers précalculés
+     */
+    private static RouteComputer routeComputer(Graph graph, CostFunction costFunction, Path graphBasePath)
+            throws IOException {
+        if (Files.exists(graphBasePath.resolve(ContractionHierarchy.ARCS_FILE_NAME))) {
+            return new RouteComputer(graph, costFunction, ContractionHierarchy.loadFrom(graphBasePath, graph));
+        }
+        if (Files.exists(graphBasePath.resolve(LandmarkHeuristic.FILE_NAME))) {
+            return new RouteComputer(graph, costFunction, RouteComputer.Engine.INDEXED_HEAP,
+                    LandmarkHeuristic.loadFrom(graphBasePath, graph));
+        }
+        return new RouteComputer(graph, costFunction);
+    }
+
     private void deleteDirectoryStream(Path path) throws IOException {
         Files.walk(path)
                 .sorted(Comparator.reverseOrder())
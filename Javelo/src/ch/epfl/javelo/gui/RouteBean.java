@@ -1,12 +1,23 @@
 package ch.epfl.javelo.gui;
 
 import ch.epfl.javelo.routing.*;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.util.Duration;
 import javafx.util.Pair;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Bean JavaFx de l'itinéraire JaVelo
@@ -22,14 +33,50 @@ public final class RouteBean{
     public static final double DEFAULT_MAX_STEP_LENGTH = 5.0;
 
     /**
-     * Capacité par défaut du cache mémoire
+     * Capacité par défaut du cache mémoire des étapes, qui est aussi le nombre d'étapes gardées dans le cache
+     * en plus de celles de l'itinéraire courant lorsque celui-ci en compte davantage
      */
     private static final int CACHE_CAPACITY = 30;
 
     /**
-     * Load Factor par défaut du cache mémoire
+     * Exécuteur, borné au nombre de processeurs, calculant en parallèle les étapes d'un itinéraire
      */
-    private static final float CACHE_LOAD_FACTOR = 0.75f;
+    private static final ExecutorService LEG_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), daemonThreads("JaVelo-etapes"));
+
+    /**
+     * Exécuteur calculant les itinéraires en arrière-plan, un seul à la fois, afin de ne pas bloquer
+     * le fil d'exécution JavaFX
+     */
+    private static final ExecutorService ROUTE_EXECUTOR = Executors.newSingleThreadExecutor(
+            daemonThreads("JaVelo-itineraire"));
+
+    /**
+     * Exécuteur optimisant l'ordre des points de passage en arrière-plan, distinct de celui des itinéraires
+     * afin de ne pas retarder leur calcul
+     */
+    private static final ExecutorService ORDER_EXECUTOR = Executors.newSingleThreadExecutor(
+            daemonThreads("JaVelo-ordre"));
+
+    /**
+     * Délai, en millisecondes, après la dernière modification des points de passage avant le calcul
+     * de l'itinéraire, afin de ne pas calculer d'itinéraire pour chaque position intermédiaire d'un
+     * point de passage déplacé
+     */
+    private static final double DEBOUNCE_DELAY_MS = 40;
+
+    /**
+     * Durée maximale, en millisecondes, de la recherche d'un meilleur ordre des points de passage une fois
+     * la matrice des coûts calculée
+     */
+    private static final long ORDER_OPTIMIZATION_BUDGET_MS = 200;
+
+    /**
+     * Durée maximale, en millisecondes, de l'optimisation de l'ordre des points de passage, calcul de la
+     * matrice des coûts compris, au-delà de laquelle elle est abandonnée ; le calcul de la matrice au moyen
+     * de recherches de Dijkstra prend plusieurs secondes pour quelques dizaines de points de passage
+     */
+    private static final double ORDER_OPTIMIZATION_TIMEOUT_MS = 15_000;
 
     /**
      * Liste observable JavaFx des points de passage de l'itinéraire courant
@@ -41,6 +88,13 @@ public final class RouteBean{
      */
     private final ReadOnlyObjectWrapper<Route> route;
 
+    /**
+     * Points de passage à partir desquels l'itinéraire courant a été calculé, vide s'il n'y en a pas ;
+     * ils diffèrent des points de passage actuels tant que l'itinéraire correspondant à ces derniers n'est
+     * pas publié
+     */
+    private List<Waypoint> routeWaypoints;
+
     /**
      * Propriété JavaFx contenant la position à mettre en évidence sur l'itinéraire courant
      */
@@ -57,10 +111,30 @@ public final class RouteBean{
     private final RouteComputer computer;
 
     /**
-     * Cache mémoire pour un accès rapide aux itinéraires
+     * Cache mémoire des étapes, par paire de noeuds et fonction de coût, pour un accès rapide aux itinéraires
      */
-    private final Map<Pair<Waypoint,Waypoint>,Route> cache;
+    private final LegCache cache;
 
+    /**
+     * Temporisation du calcul de l'itinéraire après une modification des points de passage
+     */
+    private final PauseTransition debounce;
+
+    /**
+     * Calcul d'itinéraire en cours, null si aucun n'a été lancé
+     */
+    private Future<?> pendingComputation;
+
+    /**
+     * Optimisation de l'ordre des points de passage en cours, null si aucune n'a été lancée
+     */
+    private Future<?> pendingOptimization;
+
+    /**
+     * Numéro de la version courante des points de passage, incrémenté à chaque modification ;
+     * seul le résultat d'un calcul lancé pour la version courante est publié
+     */
+    private long generation;
 
     /**
      * Constructeur du bean de l'itinéraire
@@ -68,11 +142,14 @@ public final class RouteBean{
      */
     public RouteBean(RouteComputer computer) {
         this.computer=computer;
-        this.cache = new LinkedHashMap<>(CACHE_CAPACITY, CACHE_LOAD_FACTOR, true);
+        this.cache = new LegCache(CACHE_CAPACITY);
         this.route = new ReadOnlyObjectWrapper<>();
+        this.routeWaypoints = List.of();
         this.elevationProfile = new ReadOnlyObjectWrapper<>();
         this.waypoints = FXCollections.observableArrayList();
-        this.waypoints.addListener((ListChangeListener<Waypoint>) c-> determineRoute());
+        this.waypoints.addListener((ListChangeListener<Waypoint>) c-> scheduleRoute());
+        this.debounce = new PauseTransition(Duration.millis(DEBOUNCE_DELAY_MS));
+        this.debounce.setOnFinished(e -> determineRoute());
         this.highlightedPosition=new SimpleDoubleProperty(Double.NaN);
     }
 
@@ -100,20 +177,29 @@ public final class RouteBean{
 
     /**
      * Méthode qui permet de déterminer l'index dans la liste des points de passage
-     * correspondant à la position donné sur l'itinéraire
+     * correspondant à la position donné sur l'itinéraire ; l'itinéraire étant calculé en arrière-plan,
+     * l'index est celui des points de passage à partir desquels l'itinéraire courant a été calculé,
+     * qui ne sont les points de passage actuels que si isRouteUpToDate retourne true
      * @param position position le long de l'itinéraire
      * @return l'index
      */
     public int indexOfNonEmptySegmentAt(double position) {
         int index = route.get().indexOfSegmentAt(position);
         for (int i = 0; i <= index; i += 1) {
-            int n1 = waypoints.get(i).closestNodeId();
-            int n2 = waypoints.get(i + 1).closestNodeId();
-            if (n1 == n2) index += 1;
+            if (sameLocation(routeWaypoints.get(i), routeWaypoints.get(i + 1))) index += 1;
         }
         return index;
     }
 
+    /**
+     * Vérifie si l'itinéraire courant a été calculé à partir des points de passage actuels, ce qui n'est
+     * pas le cas entre une modification de ceux-ci et la publication de l'itinéraire correspondant
+     * @return true si l'itinéraire courant correspond aux points de passage actuels
+     */
+    public boolean isRouteUpToDate() {
+        return routeWaypoints.equals(waypoints);
+    }
+
     /**
      * Getter de la propriété de la position à mettre en évidence
      * @return la propriété
@@ -131,103 +217,290 @@ public final class RouteBean{
     }
 
     /**
-     * Méthode outil qui permet de modifier l'itinéraire et le profil courants
-     * en fonction de la liste des points de passage
+     * Getter du cache des étapes, qui permet d'en consulter les statistiques
+     * @return le cache
+     */
+    public LegCache legCache(){
+        return cache;
+    }
+
+    /**
+     * Réordonne, en arrière-plan, les points de passage intermédiaires de façon à réduire le coût total de
+     * l'itinéraire, le premier et le dernier point restant en place : la matrice des coûts entre les positions
+     * des points de passage sur le graphe est calculée, puis un ordre de faible coût en est déduit par
+     * TourOptimizer en au plus ORDER_OPTIMIZATION_BUDGET_MS millisecondes. Si les points de passage sont
+     * modifiés entre-temps, l'optimisation est abandonnée et l'ordre reste inchangé ; si elle n'est pas terminée
+     * après ORDER_OPTIMIZATION_TIMEOUT_MS millisecondes, elle est aussi abandonnée et l'erreur est signalée
+     * @param error consommateur des messages d'erreur, appelé sur le fil d'exécution JavaFX
+     */
+    public void optimizeWaypointOrder(Consumer<String> error){
+        if (waypoints.size() < 4) return;
+        if (pendingOptimization != null) pendingOptimization.cancel(true);
+
+        List<Waypoint> currentWaypoints = List.copyOf(waypoints);
+        long optimizationGeneration = generation;
+
+        Future<?> optimization = ORDER_EXECUTOR.submit(() -> {
+            int[] order;
+            try {
+                List<EdgePosition> positions = new ArrayList<>(currentWaypoints.size());
+                for (Waypoint waypoint : currentWaypoints) {
+                    positions.add(edgePosition(waypoint));
+                }
+
+                // Les lignes de la matrice sont partagées avec l'exécuteur des étapes plutôt qu'avec un autre
+                RouteMatrix matrix = computer.matrixBetween(positions, Double.POSITIVE_INFINITY, LEG_EXECUTOR);
+                order = TourOptimizer.optimizedOrder(matrix,
+                        TimeUnit.MILLISECONDS.toNanos(ORDER_OPTIMIZATION_BUDGET_MS));
+            } catch (CancellationException e) {
+                return;
+            } catch (RuntimeException e) {
+                Platform.runLater(() -> { throw e; });
+                return;
+            }
+
+            List<Waypoint> orderedWaypoints = new ArrayList<>(order.length);
+            for (int index : order) {
+                orderedWaypoints.add(currentWaypoints.get(index));
+            }
+
+            Platform.runLater(() -> {
+                if (optimizationGeneration != generation || orderedWaypoints.equals(currentWaypoints)) return;
+
+                waypoints.setAll(orderedWaypoints);
+            });
+        });
+        pendingOptimization = optimization;
+
+        PauseTransition timeout = new PauseTransition(Duration.millis(ORDER_OPTIMIZATION_TIMEOUT_MS));
+        timeout.setOnFinished(e -> {
+            // Une optimisation annulée entre-temps est aussi terminée
+            if (optimization.isDone()) return;
+
+            optimization.cancel(true);
+            error.accept("Optimisation de l'ordre trop longue !");
+        });
+        timeout.play();
+    }
+
+    /**
+     * Méthode outil appelée à chaque modification des points de passage : le calcul en cours et
+     * l'optimisation de l'ordre en cours, devenus obsolètes, sont annulés, et un nouveau calcul est programmé une fois les modifications
+     * terminées depuis DEBOUNCE_DELAY_MS millisecondes
+     */
+    private void scheduleRoute(){
+        generation += 1;
+        if (pendingComputation != null) pendingComputation.cancel(true);
+        if (pendingOptimization != null) pendingOptimization.cancel(true);
+
+        debounce.playFromStart();
+    }
+
+    /**
+     * Méthode outil qui lance, en arrière-plan, le calcul de l'itinéraire et du profil correspondant
+     * aux points de passage actuels ; le résultat n'est publié, sur le fil d'exécution JavaFX,
+     * que si les points de passage n'ont pas été modifiés entre-temps
      */
     private void determineRoute(){
+        if (waypoints.size() < 2) {
+            noRoute();
+            return;
+        }
 
-        switch (waypoints.size()) {
+        List<Waypoint> currentWaypoints = List.copyOf(waypoints);
+        long computationGeneration = generation;
+
+        // Les étapes étant demandées dans le même ordre à chaque calcul, un cache plus petit que l'itinéraire
+        // retirerait chacune d'elles juste avant sa réutilisation
+        cache.ensureCapacity(currentWaypoints.size() - 1 + CACHE_CAPACITY);
+
+        pendingComputation = ROUTE_EXECUTOR.submit(() -> {
+            ComputedRoute computed;
+            try {
+                computed = computeRoute(currentWaypoints);
+            } catch (CancellationException e) {
+                return;
+            } catch (RuntimeException e) {
+                Platform.runLater(() -> { throw e; });
+                return;
+            }
 
-            case 0, 1 ->  noRoute();
+            Platform.runLater(() -> {
+                if (computationGeneration != generation || computed == null) return;
 
-            case 2 -> {
-                Pair<Waypoint,Waypoint> pair=extractPair(0);
-                if (pair.getKey().closestNodeId()!=pair.getValue().closestNodeId()){
+                routeWaypoints = computed.route() == null ? List.of() : currentWaypoints;
+                route.set(computed.route());
+                elevationProfile.set(computed.profile());
+            });
+        });
+    }
+
+    /**
+     * Méthode outil qui calcule l'itinéraire et le profil passant par les points de passage donnés,
+     * exécutée en arrière-plan
+     * @param waypoints les points de passage, au moins deux
+     * @return l'itinéraire et son profil, ou null si l'itinéraire courant doit rester inchangé
+     * (deux points de passage rattachés au même endroit du graphe)
+     * @throws CancellationException si le calcul a été annulé
+     */
+    private ComputedRoute computeRoute(List<Waypoint> waypoints){
+
+        if (waypoints.size() == 2) {
+            Pair<Waypoint,Waypoint> pair=extractPair(waypoints, 0);
+            if (sameLocation(pair.getKey(), pair.getValue())) return null;
 
-                    Route bestRoute = bestRouteBetweenPair(pair);
-                    addToCache(pair,bestRoute);
-                    route.set(bestRoute);
+            return computedRoute(bestRouteBetweenPair(pair));
+        }
 
-                    if (bestRoute != null) {
-                        elevationProfile.set(ElevationProfileComputer
-                                .elevationProfile(bestRoute, DEFAULT_MAX_STEP_LENGTH));
-                    } else {
-                        noRoute();}
+        List<Future<Route>> legs = new ArrayList<>();
+
+        try {
+            // Les étapes étant indépendantes, elles sont toutes soumises avant d'en attendre une seule
+            for (int i=0; i< waypoints.size()-1;i++){
+                Pair<Waypoint,Waypoint> pair = extractPair(waypoints, i);
+
+                if (!sameLocation(pair.getKey(), pair.getValue())){
+                    legs.add(LEG_EXECUTOR.submit(() -> bestRouteBetweenPair(pair)));
                 }
             }
 
-            default -> {
-                List<Route> routes = new ArrayList<>();
-                boolean failed = false;
+            List<Route> routes = new ArrayList<>();
 
-                for (int i=0; i< waypoints.size()-1;i++){
-                    Pair<Waypoint,Waypoint> pair = extractPair(i);
+            for (Future<Route> leg : legs){
+                Route bestRoute = join(leg);
 
-                    if (pair.getKey().closestNodeId() != pair.getValue().closestNodeId()){
-                        Route bestRoute = bestRouteBetweenPair(pair);
-                        addToCache(pair,bestRoute);
+                if (bestRoute == null) return computedRoute(null);
 
-                        if (bestRoute == null){
-                            noRoute();
-                            failed = true;
-                            break;
-                        }
-                        routes.add(bestRoute);
-                    }
-                }
-                if (!failed){
-                    Route bestRoute = new MultiRoute(routes);
-                    route.set(bestRoute);
-                    elevationProfile.set(ElevationProfileComputer
-                            .elevationProfile(bestRoute, DEFAULT_MAX_STEP_LENGTH));
-                }
+                routes.add(bestRoute);
             }
+            return computedRoute(new MultiRoute(routes));
+        } finally {
+            // Sans effet sur les étapes terminées, interrompt les autres en cas d'échec ou d'annulation
+            legs.forEach(leg -> leg.cancel(true));
         }
     }
 
+    /**
+     * Méthode outil qui associe son profil à l'itinéraire donné
+     * @param bestRoute l'itinéraire, null s'il n'existe pas
+     * @return l'itinéraire et son profil, tous deux null si l'itinéraire n'existe pas
+     */
+    private static ComputedRoute computedRoute(Route bestRoute){
+        return bestRoute == null
+                ? new ComputedRoute(null, null)
+                : new ComputedRoute(bestRoute,
+                ElevationProfileComputer.elevationProfile(bestRoute, DEFAULT_MAX_STEP_LENGTH));
+    }
+
     /**
      * Méthode outil qui gère le cas où il n'y a aucun itinéraire courant
      */
     private void noRoute() {
+        routeWaypoints = List.of();
         route.set(null);
         elevationProfile.set(null);
     }
 
     /**
-     * Méthode outil qui permet d'extraire de la liste des points de passage une
+     * Méthode outil qui permet d'extraire de la liste des points de passage donnée une
      * paire de points de passage à l'index donné
+     * @param waypoints la liste des points de passage
      * @param index L'index de la paire dans la liste
      * @return la paire des points de passage
      */
-    private Pair<Waypoint,Waypoint> extractPair(int index){
+    private static Pair<Waypoint,Waypoint> extractPair(List<Waypoint> waypoints, int index){
         return new Pair<>(waypoints.get(index),waypoints.get(index + 1));
     }
 
     /**
      * Méthode outil qui renvoie le meilleur itinéraire entre la paire de points de passage donnée,
-     * soit en l'extrayant du cache ou en le calculant.
+     * soit en l'extrayant du cache, soit, uniquement s'il n'y est pas, en le calculant.
+     * Si l'un des points de passage est rattaché au milieu d'une arête, l'étape relie les positions
+     * des deux points sur leurs arêtes, celle d'un point rattaché à un noeud étant déduite de son noeud.
      * @param pair la paire des points de passage
      * @return l'itinéraire optimal
      */
     private Route bestRouteBetweenPair(Pair<Waypoint,Waypoint> pair){
-        return cache.getOrDefault(pair,
-                computer.bestRouteBetween(pair.getKey().closestNodeId(),
-                        pair.getValue().closestNodeId()));
+        Waypoint from = pair.getKey();
+        Waypoint to = pair.getValue();
+
+        if (!from.isOnEdge() && !to.isOnEdge()) {
+            return cache.bestRouteBetween(computer, from.closestNodeId(), to.closestNodeId());
+        }
+        return cache.bestRouteBetween(computer, edgePosition(from), edgePosition(to));
     }
 
     /**
-     * Méthode outil qui sert à rajouter la route calculée au cache mémoire, et supprime
-     * la route accédée il y a le plus longtemps si il n'y a pas la place
-     * @param pair pair de points de passages
-     * @param route meilleure route calculee entre la pair des points de passages
+     * Méthode outil qui vérifie si les deux points de passage donnés sont rattachés au même endroit du graphe,
+     * auquel cas aucune étape ne les relie
+     * @param first le premier point de passage
+     * @param second le second point de passage
+     * @return true s'ils sont rattachés au même noeud ou au même point d'une arête
      */
-    private void addToCache(Pair<Waypoint,Waypoint> pair, Route route){
-        Iterator<Map.Entry<Pair<Waypoint,Waypoint>,Route>> iterator = cache.entrySet().iterator();
+    private boolean sameLocation(Waypoint first, Waypoint second){
+        return first.isOnEdge() || second.isOnEdge()
+                ? computer.sameLocation(edgePosition(first), edgePosition(second))
+                : first.closestNodeId() == second.closestNodeId();
+    }
 
-        if (cache.size() >= CACHE_CAPACITY) {
-            cache.remove(iterator.next().getKey());
+    /**
+     * Méthode outil qui retourne la position sur une arête du point de passage donné
+     * @param waypoint le point de passage
+     * @return sa position sur son arête, ou celle de son noeud s'il est rattaché à un noeud
+     */
+    private EdgePosition edgePosition(Waypoint waypoint){
+        return waypoint.isOnEdge() ? waypoint.edgePosition() : computer.positionOfNode(waypoint.closestNodeId());
+    }
+
+    /**
+     * Méthode outil qui retourne une fabrique de fils d'exécution démons, afin qu'ils n'empêchent pas
+     * la fermeture de l'application
+     * @param name nom des fils d'exécution
+     * @return la fabrique
+     */
+    private static ThreadFactory daemonThreads(String name){
+        return task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 
+    /**
+     * Méthode outil qui attend la fin du calcul d'une étape et en retourne le résultat
+     * @param leg le calcul de l'étape
+     * @return l'itinéraire de l'étape, null s'il n'existe pas
+     * @throws CancellationException si le fil d'exécution est interrompu pendant l'attente
+     */
+    private static Route join(Future<Route> leg){
+        try {
+            return leg.get();
+        } catch (ExecutionException e) {
+            throw unwrapped(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
         }
-        cache.put(pair, route);
     }
-}
\ No newline at end of file
+
+    /**
+     * Méthode outil qui retourne l'exception à l'origine de l'échec d'un calcul en arrière-plan, afin de
+     * la relancer
+     * @param e l'exception signalant l'échec du calcul
+     * @return l'exception d'origine si elle n'est pas vérifiée, une IllegalStateException l'enveloppant sinon
+     * @throws Error si l'échec est dû à une erreur
+     */
+    private static RuntimeException unwrapped(ExecutionException e){
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtimeException) return runtimeException;
+        if (cause instanceof Error error) throw error;
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * Enregistrement qui représente un itinéraire calculé en arrière-plan et son profil
+     * @param route l'itinéraire, null s'il n'existe pas
+     * @param profile le profil de l'itinéraire, null s'il n'existe pas
+     */
+    private record ComputedRoute(Route route, ElevationProfile profile) {}
+}
@@ -10,6 +10,7 @@ import javafx.scene.shape.Circle;
 import javafx.scene.shape.Polyline;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Gestionnaire de l'affichage graphique de l'itinéraire
@@ -29,6 +30,12 @@ public final class RouteManager {
      */
     private final ReadOnlyObjectProperty<MapViewParameters> mapViewParameters;
 
+    /**
+     * Fonction rattachant au graphe un point de passage ajouté en cliquant sur l'itinéraire,
+     * null s'il est rattaché au noeud de l'itinéraire le plus proche
+     */
+    private final Function<PointCh, Waypoint> snap;
+
     /**
      * Panneau JavaFx du gestionnaire
      */
@@ -55,9 +62,23 @@ public final class RouteManager {
      * @param mapViewParameters Propriété contenant les paramètres de fond de carte
      */
     public RouteManager(RouteBean routeBean, ReadOnlyObjectProperty<MapViewParameters> mapViewParameters) {
+        this(routeBean, mapViewParameters, null);
+    }
+
+    /**
+     * Constructeur du gestionnaire de l'affichage de l'itinéraire dont les points de passage ajoutés en
+     * cliquant sur l'itinéraire sont rattachés au graphe par la fonction donnée
+     * @param routeBean Bean JavaFx de l'itinéraire
+     * @param mapViewParameters Propriété contenant les paramètres de fond de carte
+     * @param snap Fonction rattachant au graphe le point cliqué, retournant null s'il n'y a aucune route
+     * à proximité ; null pour rattacher le point au noeud de l'itinéraire le plus proche
+     */
+    public RouteManager(RouteBean routeBean, ReadOnlyObjectProperty<MapViewParameters> mapViewParameters,
+                        Function<PointCh, Waypoint> snap) {
 
         this.routeBean = routeBean;
         this.mapViewParameters = mapViewParameters;
+        this.snap = snap;
 
         RouteManagerHandler handler = new RouteManagerHandler();
 
@@ -184,15 +205,24 @@ public final class RouteManager {
     private class RouteManagerHandler{
 
         /**
-         * Méthode qui gère la situation ou l'utilisateur clique sur le panneau
+         * Méthode qui gère la situation ou l'utilisateur clique sur le panneau ; le clic est ignoré
+         * tant que l'itinéraire affiché n'a pas été recalculé après une modification des points de passage
          */
         private void setOnClick(){
 
             circle.setOnMouseClicked(e->{
+                // L'itinéraire affiché ne correspond plus aux points de passage tant que le nouveau n'est pas calculé
+                if (!routeBean.isRouteUpToDate()) return;
+
                 Route route = routeBean.routeProperty().get();
 
                 PointCh pointCh = route.pointAt(routeBean.highlightedPosition());
-                Waypoint waypoint = new Waypoint(pointCh,route.nodeClosestTo(routeBean.highlightedPosition()));
+                // Le point se trouvant sur l'itinéraire, il est rattaché à l'arête qui le porte plutôt qu'au
+                // noeud le plus proche, qui imposerait un détour jusqu'à ce noeud
+                Waypoint waypoint = snap == null ? null : snap.apply(pointCh);
+                if (waypoint == null) {
+                    waypoint = new Waypoint(pointCh, route.nodeClosestTo(routeBean.highlightedPosition()));
+                }
 
                 int index = routeBean.indexOfNonEmptySegmentAt(routeBean.highlightedPosition())+1;
                 routeBean.waypointsProperty().add(index, waypoint);
@@ -1,12 +1,44 @@
 package ch.epfl.javelo.gui;
 
 import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.routing.EdgePosition;
 
 /**
- * Enregistrement qui représente un point de passage.
+ * Enregistrement qui représente un point de passage, rattaché soit à un noeud, soit à une position
+ * au milieu d'une arête ; dans ce dernier cas, closestNodeId est le noeud de l'arête le plus proche.
+ *
+ * @param point position du point de passage
+ * @param closestNodeId identité du noeud le plus proche
+ * @param edgeId identité de l'arête à laquelle le point est rattaché, -1 s'il est rattaché à un noeud
+ * @param positionOnEdge position le long de l'arête, NaN s'il est rattaché à un noeud
  *
  * @author Albert Fares (341918)
  * @author Etienne Asselin (340201)
  */
-public record Waypoint(PointCh point, int closestNodeId) {}
+public record Waypoint(PointCh point, int closestNodeId, int edgeId, double positionOnEdge) {
+
+    /**
+     * Constructeur d'un point de passage rattaché à un noeud
+     * @param point position du point de passage
+     * @param closestNodeId identité du noeud le plus proche
+     */
+    public Waypoint(PointCh point, int closestNodeId) {
+        this(point, closestNodeId, -1, Double.NaN);
+    }
+
+    /**
+     * Vérifie si le point de passage est rattaché au milieu d'une arête
+     * @return true s'il est rattaché à une arête
+     */
+    public boolean isOnEdge() {
+        return edgeId != -1;
+    }
 
+    /**
+     * Retourne la position du point de passage sur son arête
+     * @return la position, null s'il est rattaché à un noeud
+     */
+    public EdgePosition edgePosition() {
+        return isOnEdge() ? new EdgePosition(edgeId, positionOnEdge) : null;
+    }
+}
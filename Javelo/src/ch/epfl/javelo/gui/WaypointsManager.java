@@ -83,6 +83,11 @@ public final class WaypointsManager {
      */
     private final WaypointsEventsHandler waypointsEventsHandler;
 
+    /**
+     * Mode de rattachement des nouveaux points de passage au graphe
+     */
+    private final SnapMode snapMode;
+
     /**
      * Constructeur du gestionnaire de l'affichage et de l'interaction avec les points de passage
      * @param graph Graphe du réseau routier
@@ -91,7 +96,21 @@ public final class WaypointsManager {
      * @param error Consomateur d'erreurs
      */
     public WaypointsManager(Graph graph, ObjectProperty<MapViewParameters> mapViewParameters, ObservableList<Waypoint> wayPoints, Consumer<String> error) {
+        this(graph, mapViewParameters, wayPoints, error, SnapMode.NODE);
+    }
+
+    /**
+     * Constructeur du gestionnaire de l'affichage et de l'interaction avec les points de passage,
+     * qui rattache les nouveaux points de passage au graphe selon le mode donné
+     * @param graph Graphe du réseau routier
+     * @param mapViewParameters Paramètres du fond de carte
+     * @param wayPoints Liste observable des points de passages
+     * @param error Consomateur d'erreurs
+     * @param snapMode Mode de rattachement des points de passage
+     */
+    public WaypointsManager(Graph graph, ObjectProperty<MapViewParameters> mapViewParameters, ObservableList<Waypoint> wayPoints, Consumer<String> error, SnapMode snapMode) {
         this.graph = graph;
+        this.snapMode = snapMode;
         this.error = error;
         this.mapViewParameters = mapViewParameters;
         this.wayPoints = wayPoints;
@@ -171,12 +190,12 @@ public final class WaypointsManager {
         if (pointCh == null) error.accept("Le point placé n'est pas en Suisse !");
         else {
 
-            int nodeId = graph.nodeClosestTo(pointCh, SEARCH_DISTANCE);
+            Waypoint waypoint = snap(pointCh);
 
-            if (nodeId == -1) {
+            if (waypoint == null) {
                 error.accept("Aucune route à proximité !");
             } else {
-                wayPoints.add(new Waypoint(pointCh, nodeId));
+                wayPoints.add(waypoint);
             }
 
             drawAndReposition();
@@ -185,6 +204,31 @@ public final class WaypointsManager {
     }
 
 
+    /**
+     * Methode qui rattache au graphe, selon le mode de rattachement, un point de passage au point donné :
+     * au noeud le plus proche, ou à la position la plus proche sur l'arête la plus proche
+     * @param pointCh le point en coordonnées CH1903+
+     * @return le point de passage, null s'il n'y a aucune route à proximité
+     */
+    Waypoint snap(PointCh pointCh){
+
+        if (snapMode == SnapMode.NODE) {
+            int nodeId = graph.nodeClosestTo(pointCh, SEARCH_DISTANCE);
+            return nodeId == -1 ? null : new Waypoint(pointCh, nodeId);
+        }
+
+        double[] projection = new double[2];
+        int edgeId = graph.edgeClosestTo(pointCh, SEARCH_DISTANCE, projection);
+        if (edgeId == -1) return null;
+
+        double position = projection[0];
+        int closestNodeId = position <= graph.edgeLength(edgeId) / 2
+                ? graph.edgeSourceNodeId(edgeId)
+                : graph.edgeTargetNodeId(edgeId);
+
+        return new Waypoint(pointCh, closestNodeId, edgeId, position);
+    }
+
     /**
      * Methode outils qui redessiner et repositionne les pins
      */
@@ -286,15 +330,15 @@ public final class WaypointsManager {
                             PointCh pointCh = newPin.toPointCh();
 
                             if (pointCh != null) {
-                                int nodeId = graph.nodeClosestTo(pointCh, SEARCH_DISTANCE);
+                                Waypoint waypoint = snap(pointCh);
 
-                                if (nodeId == -1) {
+                                if (waypoint == null) {
                                     error.accept("Aucune route à proximité !");
 
                                 } else {
                                     wayPoints.remove(index);
                                     groups.remove(g);
-                                    wayPoints.add(index, new Waypoint(newPin.toPointCh(), nodeId));
+                                    wayPoints.add(index, waypoint);
                                 }
 
                             } else {
@@ -309,11 +353,19 @@ public final class WaypointsManager {
 
     }
 
-}
-
-
-
-
-
+    /**
+     * Mode de rattachement des points de passage au graphe
+     */
+    public enum SnapMode {
 
+        /**
+         * Rattachement au noeud le plus proche
+         */
+        NODE,
 
+        /**
+         * Rattachement à la position la plus proche sur l'arête la plus proche
+         */
+        EDGE
+    }
+}
@@ -0,0 +1,18 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Enregistrement qui représente l'un des itinéraires proposés entre deux noeuds, accompagné de son coût et de
+ * ce qui le distingue des itinéraires proposés avant lui
+ *
+ * @param route l'itinéraire
+ * @param cost coût de l'itinéraire selon la fonction de coût du calculateur
+ * @param overlapRatio proportion de la longueur de l'itinéraire parcourant des arêtes des itinéraires
+ *                     proposés avant lui, nulle pour le meilleur itinéraire
+ * @param extraCostRatio coût supplémentaire de l'itinéraire relativement au meilleur itinéraire, nul pour
+ *                       le meilleur itinéraire
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public record AlternativeRoute(Route route, double cost, double overlapRatio, double extraCostRatio) {
+}
@@ -0,0 +1,138 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Classe qui représente une fonction de coût évaluant une AttributeCostFunction au moyen de tables :
+ * la classe de pente de chaque arête est calculée une fois pour toutes à la construction, et le facteur
+ * de coût de chaque triplet (ensemble d'attributs, sens, classe de pente) lors de sa première utilisation.
+ * Le graphe comportant au plus 65 536 ensembles d'attributs distincts, la table des facteurs est bien plus
+ * petite que le nombre d'arêtes, et changer de fonction de coût au moyen de withCostFunction ne demande
+ * de recalculer qu'elle, les classes de pente étant partagées si les bornes des classes sont identiques.
+ * Les instances peuvent être partagées entre plusieurs fils d'exécution.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class AttributeCostCache implements CostFunction {
+
+    /**
+     * Nombre de sens de parcours d'une arête
+     */
+    private static final int DIRECTIONS = 2;
+
+    /**
+     * Graphe Javelo
+     */
+    private final Graph graph;
+
+    /**
+     * Fonction de coût mise en cache
+     */
+    private final AttributeCostFunction costFunction;
+
+    /**
+     * Bornes des classes de pente de la fonction de coût
+     */
+    private final double[] slopeBucketBounds;
+
+    /**
+     * Classe de pente de chaque arête
+     */
+    private final byte[] edgeSlopeBuckets;
+
+    /**
+     * Facteur de coût de chaque triplet (ensemble d'attributs, sens, classe de pente), NaN s'il n'a pas
+     * encore été calculé
+     */
+    private final float[] factors;
+
+    /**
+     * Constructeur du cache, qui calcule la classe de pente de chaque arête
+     * @param graph Graphe Javelo
+     * @param costFunction fonction de coût à mettre en cache
+     */
+    public AttributeCostCache(Graph graph, AttributeCostFunction costFunction) {
+        this(graph, costFunction, slopeBuckets(graph, costFunction.slopeBucketBounds()));
+    }
+
+    /**
+     * Constructeur privé auquel sont passées des classes de pente déjà calculées
+     * @param graph Graphe Javelo
+     * @param costFunction fonction de coût à mettre en cache
+     * @param edgeSlopeBuckets classe de pente de chaque arête pour les bornes de la fonction de coût
+     */
+    private AttributeCostCache(Graph graph, AttributeCostFunction costFunction, byte[] edgeSlopeBuckets) {
+        this.graph = graph;
+        this.costFunction = costFunction;
+        this.slopeBucketBounds = costFunction.slopeBucketBounds();
+        this.edgeSlopeBuckets = edgeSlopeBuckets;
+        this.factors = new float[graph.attributeSetCount() * DIRECTIONS * bucketCount()];
+
+        Arrays.fill(factors, Float.NaN);
+    }
+
+    /**
+     * Retourne un cache de la fonction de coût donnée sur le même graphe ; les classes de pente des arêtes
+     * sont réutilisées si la fonction a les mêmes bornes de classes que celle de ce cache
+     * @param otherCostFunction la nouvelle fonction de coût
+     * @return le cache de la nouvelle fonction de coût
+     */
+    public AttributeCostCache withCostFunction(AttributeCostFunction otherCostFunction) {
+        return Arrays.equals(slopeBucketBounds, otherCostFunction.slopeBucketBounds())
+                ? new AttributeCostCache(graph, otherCostFunction, edgeSlopeBuckets)
+                : new AttributeCostCache(graph, otherCostFunction);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double costFactor(int nodeId, int edgeId) {
+        int attributesIndex = graph.edgeAttributesIndex(edgeId);
+        boolean inverted = graph.edgeIsInverted(edgeId);
+        int slopeBucket = edgeSlopeBuckets[edgeId];
+
+        int index = ((attributesIndex * DIRECTIONS) + (inverted ? 1 : 0)) * bucketCount() + slopeBucket;
+        float factor = factors[index];
+
+        // Deux fils d'exécution peuvent calculer le même facteur simultanément, les résultats étant identiques
+        if (Float.isNaN(factor)) {
+            factor = (float) costFunction.costFactor(graph.attributeSet(attributesIndex), inverted, slopeBucket);
+            factors[index] = factor;
+        }
+
+        return factor;
+    }
+
+    /**
+     * Méthode outil qui retourne le nombre de classes de pente
+     * @return le nombre de classes de pente
+     */
+    private int bucketCount() {
+        return slopeBucketBounds.length + 1;
+    }
+
+    /**
+     * Méthode outil qui calcule la classe de pente de chaque arête du graphe
+     * @param graph le graphe
+     * @param bounds bornes des classes de pente
+     * @return la classe de pente de chaque arête
+     * @throws IllegalArgumentException s'il y a trop de classes pour qu'un byte suffise à les représenter
+     */
+    private static byte[] slopeBuckets(Graph graph, double[] bounds) {
+        Preconditions.checkArgument(bounds.length < Byte.MAX_VALUE);
+
+        byte[] buckets = new byte[graph.edgeCount()];
+
+        for (int edgeId = 0; edgeId < buckets.length; edgeId++) {
+            double averageUpSlope = graph.edgeElevationGain(edgeId) / graph.edgeLength(edgeId);
+            buckets[edgeId] = (byte) AttributeCostFunction.slopeBucket(bounds, averageUpSlope);
+        }
+
+        return buckets;
+    }
+}
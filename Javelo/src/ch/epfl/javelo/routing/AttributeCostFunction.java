@@ -0,0 +1,47 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.AttributeSet;
+
+/**
+ * Interface qui représente une fonction de coût ne dépendant que des attributs OSM d'une arête,
+ * de son sens de parcours et de la classe (bucket) de sa pente moyenne, ce qui permet à
+ * AttributeCostCache de la précalculer une fois par ensemble d'attributs plutôt qu'une fois par arête
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public interface AttributeCostFunction extends CostFunction {
+
+    /**
+     * Retourne les bornes supérieures (exclues) des classes de pente, par ordre croissant ;
+     * une pente supérieure ou égale à la dernière borne, ou indéfinie, appartient à la dernière classe,
+     * d'index égal au nombre de bornes
+     *
+     * @return les bornes des classes de pente
+     */
+    double[] slopeBucketBounds();
+
+    /**
+     * Retourne le facteur de coût d'une arête ayant les attributs, le sens et la classe de pente donnés
+     *
+     * @param attributes attributs OSM de l'arête
+     * @param inverted true si l'arête va dans le sens inverse de la voie OSM dont elle provient
+     * @param slopeBucket index de la classe de pente moyenne montante de l'arête
+     * @return le facteur
+     */
+    double costFactor(AttributeSet attributes, boolean inverted, int slopeBucket);
+
+    /**
+     * Retourne l'index de la classe de pente de la pente donnée
+     *
+     * @param bounds bornes des classes de pente
+     * @param slope pente moyenne montante
+     * @return l'index de la classe de pente
+     */
+    static int slopeBucket(double[] bounds, double slope) {
+        for (int bucket = 0; bucket < bounds.length; bucket++) {
+            if (slope < bounds[bucket]) return bucket;
+        }
+        return bounds.length;
+    }
+}
@@ -11,7 +11,7 @@ import static ch.epfl.javelo.data.Attribute.*;
 // https://github.com/abrensch/brouter/blob/15e84c81ea23408abde8605bd57a87a777003ce2/misc/profiles2/trekking.brf
 
 @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
-public record CityBikeCF(Graph graph) implements CostFunction {
+public record CityBikeCF(Graph graph) implements AttributeCostFunction {
     // Any kind of marked cycle route (international, national, regional or local)
     private static final AttributeSet CYCLE_ROUTE =
             AttributeSet.of(ICN_YES, NCN_YES, RCN_YES, LCN_YES);
@@ -62,15 +62,30 @@ public record CityBikeCF(Graph graph) implements CostFunction {
     private static final Optional<Boolean> FALSE = Optional.of(Boolean.FALSE);
     private static final Optional<Boolean> UNKNOWN = Optional.empty();
 
+    // Upper bounds of the average up slope classes (flat, gentle, moderate, steep, very steep)
+    private static final double[] SLOPE_BUCKET_BOUNDS = {0.01, 0.03, 0.05, 0.10};
+    private static final double[] SLOPE_FACTORS = {1, 1.2, 1.4, 1.8, 2.6};
+
     @Override
     public double costFactor(int nodeId, int edgeId) {
-        var edgeAttributes = graph.edgeAttributes(edgeId);
+        var averageUpSlope = graph.edgeElevationGain(edgeId) / graph.edgeLength(edgeId);
+        return costFactor(
+                graph.edgeAttributes(edgeId),
+                graph.edgeIsInverted(edgeId),
+                AttributeCostFunction.slopeBucket(SLOPE_BUCKET_BOUNDS, averageUpSlope));
+    }
+
+    @Override
+    public double[] slopeBucketBounds() {
+        return SLOPE_BUCKET_BOUNDS.clone();
+    }
 
+    @Override
+    public double costFactor(AttributeSet edgeAttributes, boolean isInverted, int slopeBucket) {
         // Exclude motorways.
         if (edgeAttributes.contains(HIGHWAY_MOTORWAY)) return Double.POSITIVE_INFINITY;
 
         // Exclude forbidden one-way streets.
-        var isInverted = graph.edgeIsInverted(edgeId);
         var wrongOneWay = isInverted
                 ? edgeAttributes.intersects(ONEWAY_FORWARD)
                 : edgeAttributes.contains(ONEWAY_M1);
@@ -95,12 +110,7 @@ public record CityBikeCF(Graph graph) implements CostFunction {
                 ? 1d
                 : 0.05 + nonCycleRouteCostFactor(edgeAttributes);
 
-        var averageUpSlope = graph.edgeElevationGain(edgeId) / graph.edgeLength(edgeId);
-        if (averageUpSlope < 0.01) return flatCost;
-        else if (averageUpSlope < 0.03) return flatCost * 1.2;
-        else if (averageUpSlope < 0.05) return flatCost * 1.4;
-        else if (averageUpSlope < 0.10) return flatCost * 1.8;
-        else return flatCost * 2.6;
+        return flatCost * SLOPE_FACTORS[slopeBucket];
     }
 
     private Optional<Boolean> isAccessibleByBike(AttributeSet edgeAttributes) {
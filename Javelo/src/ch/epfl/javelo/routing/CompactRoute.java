@@ -0,0 +1,228 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classe qui représente un itinéraire simple composé d'arêtes entières du graphe, stocké sous forme de
+ * tableaux de types primitifs : les identités de ses arêtes et de ses noeuds, et les positions de ses noeuds
+ * le long de l'itinéraire. Les points et les profils des arêtes sont obtenus du graphe à chaque demande,
+ * de sorte qu'un itinéraire n'occupe que 16 octets par arête (identités de l'arête et de son noeud d'arrivée,
+ * position de ce noeud), contre plusieurs objets par arête pour SingleRoute ; l'itinéraire est équivalent au
+ * SingleRoute composé des arêtes retournées par edges.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class CompactRoute implements Route {
+
+    /**
+     * Graphe Javelo dont les arêtes constituent l'itinéraire
+     */
+    private final Graph graph;
+
+    /**
+     * Identités des arêtes de l'itinéraire, dans l'ordre
+     */
+    private final int[] edgeIds;
+
+    /**
+     * Identités des noeuds de l'itinéraire, dans l'ordre, un de plus que d'arêtes
+     */
+    private final int[] nodeIds;
+
+    /**
+     * Position de chaque noeud le long de l'itinéraire, servant à la recherche dichotomique sur les arêtes
+     */
+    private final double[] cumulativeLength;
+
+    /**
+     * Constructeur de l'itinéraire composé des arêtes données, chacune devant partir du noeud d'arrivée
+     * de la précédente, et la première du noeud de départ donné
+     * @param graph graphe Javelo dont les arêtes constituent l'itinéraire
+     * @param startNodeId identité du noeud de départ de l'itinéraire
+     * @param edgeIds identités des arêtes de l'itinéraire, dans l'ordre
+     * @throws IllegalArgumentException si le tableau d'arêtes est vide
+     */
+    public CompactRoute(Graph graph, int startNodeId, int[] edgeIds) {
+        Preconditions.checkArgument(edgeIds.length > 0);
+
+        this.graph = graph;
+        this.edgeIds = edgeIds.clone();
+        this.nodeIds = new int[edgeIds.length + 1];
+        this.cumulativeLength = new double[edgeIds.length + 1];
+
+        nodeIds[0] = startNodeId;
+        for (int i = 0; i < edgeIds.length; i++) {
+            nodeIds[i + 1] = graph.edgeTargetNodeId(edgeIds[i]);
+            cumulativeLength[i + 1] = cumulativeLength[i] + graph.edgeLength(edgeIds[i]);
+        }
+    }
+
+    /**
+     * Retourne l'index de la route à la position donnée
+     * @param position la position le long de la route en mètres
+     * @return 0 pour un itinéraire simple
+     */
+    @Override
+    public int indexOfSegmentAt(double position) {
+        return 0;
+    }
+
+    /**
+     * Retourne la longueur de l'itinéraire
+     * @return la longueur en mètres
+     */
+    @Override
+    public double length() {
+        return cumulativeLength[edgeIds.length];
+    }
+
+    /**
+     * Retourne la liste de la totalité des arêtes de l'itinéraire, créées à chaque appel
+     * @return la liste des arêtes
+     */
+    @Override
+    public List<Edge> edges() {
+        return RoutePaths.edges(graph, nodeIds[0], edgeIds);
+    }
+
+    /**
+     * Retourne la liste de la totalité des coordonnées des noeuds de l'itinéraire
+     * @return la liste des noeuds
+     */
+    @Override
+    public List<PointCh> points() {
+        List<PointCh> points = new ArrayList<>(nodeIds.length);
+
+        for (int nodeId : nodeIds) {
+            points.add(graph.nodePoint(nodeId));
+        }
+        return points;
+    }
+
+    /**
+     * Renvoie le point situé à la position donnée sur l'itinéraire
+     * @param position la position le long de l'itinéraire
+     * @return le point en question, sous forme PointCh
+     */
+    @Override
+    public PointCh pointAt(double position) {
+        int index = edgeIndexAt(position);
+
+        return pointOnEdge(index, positionOnEdge(index, position));
+    }
+
+    /**
+     * Calcule l'altitude du point de l'itinéraire à la position donnée
+     * @param position la position donnée en mètre le long de l'itinéraire
+     * @return l'altitude au niveau de ce point
+     */
+    @Override
+    public double elevationAt(double position) {
+        int index = edgeIndexAt(position);
+
+        return graph.edgeElevationAt(edgeIds[index], positionOnEdge(index, position));
+    }
+
+    /**
+     * Retourne l'identité du noeud de l'itinéraire le plus proche de la position donnée
+     * @param position la position le long de l'itinéraire
+     * @return l'identité du noeud le plus proche
+     */
+    @Override
+    public int nodeClosestTo(double position) {
+        if (position <= 0) return nodeIds[0];
+        if (position >= length()) return nodeIds[edgeIds.length];
+
+        int index = edgeIndexAt(position);
+        double halfwayBetweenSurroundingNodes = (cumulativeLength[index + 1] - cumulativeLength[index]) / 2;
+
+        return position - cumulativeLength[index] > halfwayBetweenSurroundingNodes
+                ? nodeIds[index + 1]
+                : nodeIds[index];
+    }
+
+    /**
+     * Retourne le point de l'itinéraire se trouvant le plus proche du point de référence donnée
+     * @param point point de référence sous forme PointCh
+     * @return le point de l'itinéraire sous forme Routing Point
+     */
+    @Override
+    public RoutePoint pointClosestTo(PointCh point) {
+        double smallestDistance = Double.MAX_VALUE;
+        double closestPosition = 0;
+        PointCh closestPoint = null;
+
+        PointCh toPoint = graph.nodePoint(nodeIds[0]);
+        for (int i = 0; i < edgeIds.length; i++) {
+            PointCh fromPoint = toPoint;
+            toPoint = graph.nodePoint(nodeIds[i + 1]);
+
+            double projectionPosition = Math2.clamp(0,
+                    Math2.projectionLength(fromPoint.e(), fromPoint.n(), toPoint.e(), toPoint.n(),
+                            point.e(), point.n()),
+                    graph.edgeLength(edgeIds[i]));
+            PointCh projection = pointOnEdge(i, projectionPosition);
+            double distance = projection.distanceTo(point);
+
+            if (smallestDistance >= distance) {
+                smallestDistance = distance;
+                closestPoint = projection;
+                closestPosition = cumulativeLength[i] + projectionPosition;
+            }
+        }
+
+        return new RoutePoint(closestPoint, closestPosition, smallestDistance);
+    }
+
+    /**
+     * Méthode outil qui retourne l'index de l'arête contenant la position donnée, la première arête pour une
+     * position négative et la dernière pour une position supérieure à la longueur de l'itinéraire
+     * @param position la position le long de l'itinéraire
+     * @return l'index de l'arête
+     */
+    private int edgeIndexAt(double position) {
+        int index = Arrays.binarySearch(cumulativeLength, position);
+
+        return index >= 0
+                ? Math.min(index, edgeIds.length - 1)
+                : Math2.clamp(0, ~index - 1, edgeIds.length - 1);
+    }
+
+    /**
+     * Méthode outil qui retourne la position le long de l'arête d'index donné du point de l'itinéraire à la
+     * position donnée, ramenée à l'arête
+     * @param index l'index de l'arête
+     * @param position la position le long de l'itinéraire
+     * @return la position le long de l'arête
+     */
+    private double positionOnEdge(int index, double position) {
+        return Math2.clamp(0, position - cumulativeLength[index], graph.edgeLength(edgeIds[index]));
+    }
+
+    /**
+     * Méthode outil qui renvoie le point situé à la position donnée sur l'arête d'index donné
+     * @param index l'index de l'arête
+     * @param positionOnEdge la position le long de l'arête
+     * @return le point en question
+     */
+    private PointCh pointOnEdge(int index, double positionOnEdge) {
+        PointCh fromPoint = graph.nodePoint(nodeIds[index]);
+        double edgeLength = graph.edgeLength(edgeIds[index]);
+
+        if (edgeLength == 0) return fromPoint;
+
+        PointCh toPoint = graph.nodePoint(nodeIds[index + 1]);
+        double positionFactor = positionOnEdge / edgeLength;
+
+        return new PointCh(Math2.interpolate(fromPoint.e(), toPoint.e(), positionFactor),
+                Math2.interpolate(fromPoint.n(), toPoint.n(), positionFactor));
+    }
+}
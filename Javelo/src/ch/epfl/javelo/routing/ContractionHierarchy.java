@@ -0,0 +1,834 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Classe qui représente une hiérarchie de contraction (contraction hierarchy) du graphe JaVelo
+ * pour une fonction de coût donnée, construite hors ligne par ContractionHierarchyBuilder, ainsi
+ * que son moteur de recherche.
+ * La hiérarchie est formée du rang de chaque noeud et d'arcs, qui sont soit des arêtes du graphe,
+ * soit des raccourcis remplaçant deux arcs consécutifs passant par un noeud de rang inférieur.
+ * Une recherche bidirectionnelle ne suit que les arcs menant vers des noeuds de rang supérieur,
+ * puis les raccourcis de l'itinéraire trouvé sont dépliés en arêtes du graphe.
+ * La hiérarchie n'est valable que pour la fonction de coût utilisée lors de sa construction.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class ContractionHierarchy {
+
+    /**
+     * Nom du fichier contenant le rang de chaque noeud, un int par noeud
+     */
+    public static final String RANKS_FILE_NAME = "ch_ranks.bin";
+
+    /**
+     * Nom du fichier contenant les arcs de la hiérarchie
+     */
+    public static final String ARCS_FILE_NAME = "ch_arcs.bin";
+
+    /**
+     * Décalage d'index du noeud de départ d'un arc
+     */
+    static final int OFFSET_FROM = 0;
+
+    /**
+     * Décalage d'index du noeud d'arrivée d'un arc
+     */
+    static final int OFFSET_TO = OFFSET_FROM + Integer.BYTES;
+
+    /**
+     * Décalage d'index du coût (float) d'un arc
+     */
+    static final int OFFSET_COST = OFFSET_TO + Integer.BYTES;
+
+    /**
+     * Décalage d'index de l'identité de l'arête du graphe d'un arc simple,
+     * ou du premier arc remplacé par un raccourci
+     */
+    static final int OFFSET_FIRST = OFFSET_COST + Float.BYTES;
+
+    /**
+     * Décalage d'index du second arc remplacé par un raccourci, NO_ARC pour un arc simple
+     */
+    static final int OFFSET_SECOND = OFFSET_FIRST + Integer.BYTES;
+
+    /**
+     * Le nombre de bytes total qu'occupe un arc dans le fichier
+     */
+    static final int ARC_BYTES = OFFSET_SECOND + Integer.BYTES;
+
+    /**
+     * Valeur du second arc d'un arc simple, qui n'est pas un raccourci
+     */
+    static final int NO_ARC = -1;
+
+    /**
+     * Graphe Javelo
+     */
+    private final Graph graph;
+
+    /**
+     * Rang de chaque noeud
+     */
+    private final IntBuffer ranks;
+
+    /**
+     * Arcs de la hiérarchie
+     */
+    private final ByteBuffer arcs;
+
+    /**
+     * Index, dans upArcs, du premier arc montant sortant de chaque noeud
+     */
+    private final int[] firstUpArc;
+
+    /**
+     * Arcs menant vers un noeud de rang supérieur, regroupés par noeud de départ
+     */
+    private final int[] upArcs;
+
+    /**
+     * Index, dans downArcs, du premier arc descendant entrant dans chaque noeud
+     */
+    private final int[] firstDownArc;
+
+    /**
+     * Arcs venant d'un noeud de rang supérieur, regroupés par noeud d'arrivée
+     */
+    private final int[] downArcs;
+
+    /**
+     * Espaces de travail des recherches avant, un par fil d'exécution
+     */
+    private final ThreadLocal<SearchWorkspace> forwardWorkspaces;
+
+    /**
+     * Espaces de travail des recherches arrière, un par fil d'exécution
+     */
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+
+    /**
+     * Constructeur de la hiérarchie, qui regroupe ses arcs montants et descendants par noeud
+     * @param graph Graphe Javelo
+     * @param ranks rang de chaque noeud
+     * @param arcs arcs de la hiérarchie
+     */
+    public ContractionHierarchy(Graph graph, IntBuffer ranks, ByteBuffer arcs) {
+        Preconditions.checkArgument(ranks.capacity() == graph.nodeCount() && arcs.capacity() % ARC_BYTES == 0);
+
+        this.graph = graph;
+        this.ranks = ranks;
+        this.arcs = arcs;
+
+        int nodeCount = graph.nodeCount();
+        int arcCount = arcs.capacity() / ARC_BYTES;
+
+        this.firstUpArc = new int[nodeCount + 1];
+        this.firstDownArc = new int[nodeCount + 1];
+
+        for (int arcId = 0; arcId < arcCount; arcId++) {
+            if (isUpward(arcId)) {
+                firstUpArc[arcFrom(arcId) + 1] += 1;
+            } else {
+                firstDownArc[arcTo(arcId) + 1] += 1;
+            }
+        }
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            firstUpArc[nodeId + 1] += firstUpArc[nodeId];
+            firstDownArc[nodeId + 1] += firstDownArc[nodeId];
+        }
+
+        this.upArcs = new int[firstUpArc[nodeCount]];
+        this.downArcs = new int[firstDownArc[nodeCount]];
+
+        int[] nextUp = Arrays.copyOf(firstUpArc, nodeCount);
+        int[] nextDown = Arrays.copyOf(firstDownArc, nodeCount);
+
+        for (int arcId = 0; arcId < arcCount; arcId++) {
+            if (isUpward(arcId)) {
+                upArcs[nextUp[arcFrom(arcId)]++] = arcId;
+            } else {
+                downArcs[nextDown[arcTo(arcId)]++] = arcId;
+            }
+        }
+
+        this.forwardWorkspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(nodeCount));
+        this.backwardWorkspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(nodeCount));
+    }
+
+    /**
+     * Charge la hiérarchie depuis les fichiers ch_ranks.bin et ch_arcs.bin du répertoire donné
+     * @param basePath chemin d'accès du répertoire
+     * @param graph le graphe pour lequel la hiérarchie a été construite
+     * @return la hiérarchie
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static ContractionHierarchy loadFrom(Path basePath, Graph graph) throws IOException {
+        IntBuffer ranks = extractBufferFromPath(RANKS_FILE_NAME, basePath).asIntBuffer();
+        ByteBuffer arcs = extractBufferFromPath(ARCS_FILE_NAME, basePath);
+
+        return new ContractionHierarchy(graph, ranks, arcs);
+    }
+
+    /**
+     * Détermine le meilleur itinéraire simple entre les deux noeuds Javelo donnés
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId   Identité du noeud d'arrivée
+     * @return l'itinéraire simple idéale entre les deux noeuds, composé d'arêtes du graphe,
+     * null s'il n'existe pas
+     */
+    public Route bestRouteBetween(int startNodeId, int endNodeId) {
+        int[] path = bestPathBetween(startNodeId, endNodeId);
+
+        return path == null ? null : new SingleRoute(RoutePaths.edges(graph, startNodeId, path));
+    }
+
+    /**
+     * Détermine les arêtes du graphe du meilleur itinéraire entre les deux noeuds Javelo donnés
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId   Identité du noeud d'arrivée
+     * @return les identités des arêtes de l'itinéraire idéal, dans l'ordre, null s'il n'existe pas
+     */
+    int[] bestPathBetween(int startNodeId, int endNodeId) {
+        Preconditions.checkArgument(startNodeId != endNodeId);
+
+        SearchWorkspace forward = forwardWorkspaces.get();
+        SearchWorkspace backward = backwardWorkspaces.get();
+        forward.reset();
+        backward.reset();
+
+        forward.reach(startNodeId, 0, SearchWorkspace.NO_PREDECESSOR, NO_ARC);
+        forward.heap().insertOrDecrease(startNodeId, 0);
+        backward.reach(endNodeId, 0, SearchWorkspace.NO_PREDECESSOR, NO_ARC);
+        backward.heap().insertOrDecrease(endNodeId, 0);
+
+        int meetingNodeId = meetingNode(forward, backward, Double.POSITIVE_INFINITY);
+
+        return meetingNodeId == -1 ? null : unpackPath(forward, backward, meetingNodeId);
+    }
+
+    /**
+     * Détermine le meilleur itinéraire simple entre les deux positions données au milieu d'arêtes ;
+     * les recherches avant et arrière partent des noeuds rattachés à chacune des positions, l'arête
+     * prédécesseure de ces noeuds étant l'index de leur rattachement
+     *
+     * @param start position de départ
+     * @param end position d'arrivée
+     * @param costFunction la fonction de coût pour laquelle la hiérarchie a été construite
+     * @return l'itinéraire simple idéal entre les deux positions, null s'il n'existe pas
+     */
+    Route bestRouteBetween(EdgePosition start, EdgePosition end, CostFunction costFunction) {
+        List<EdgeAnchor> startAnchors = EdgeAnchor.startAnchors(graph, costFunction, start);
+        List<EdgeAnchor> endAnchors = EdgeAnchor.endAnchors(graph, costFunction, end);
+        EdgeAnchor direct = EdgeAnchor.direct(graph, costFunction, start, end);
+
+        SearchWorkspace forward = forwardWorkspaces.get();
+        SearchWorkspace backward = backwardWorkspaces.get();
+        forward.reset();
+        backward.reset();
+
+        seed(forward, startAnchors);
+        seed(backward, endAnchors);
+
+        int meetingNodeId = meetingNode(forward, backward,
+                direct == null ? Double.POSITIVE_INFINITY : direct.cost());
+
+        if (meetingNodeId == -1) {
+            return direct == null ? null : EdgeAnchor.route(graph, direct, List.of(), null);
+        }
+
+        EdgeAnchor startAnchor = startAnchors.get(forward.predecessorEdge(origin(forward, meetingNodeId)));
+        EdgeAnchor endAnchor = endAnchors.get(backward.predecessorEdge(origin(backward, meetingNodeId)));
+
+        return EdgeAnchor.route(graph, startAnchor,
+                RoutePaths.edges(graph, startAnchor.nodeId(), unpackPath(forward, backward, meetingNodeId)),
+                endAnchor);
+    }
+
+    /**
+     * Calcule les coûts et les longueurs des meilleurs itinéraires entre chacun des noeuds de départ et chacun
+     * des noeuds d'arrivée donnés au moyen de l'algorithme des seaux (bucket-based many-to-many) : une
+     * recherche arrière complète, ne suivant que les arcs montants, part de chaque noeud d'arrivée et dépose
+     * dans le seau de chaque noeud visité le coût qui le sépare de ce noeud d'arrivée ; une recherche avant
+     * part ensuite de chaque noeud de départ, et chaque noeud visité combine sa distance avec les coûts de
+     * son seau. Les longueurs ne sont calculées, en dépliant les arcs, que pour les meilleurs itinéraires
+     *
+     * @param sourceNodeIds identités des noeuds de départ, une par ligne de la matrice
+     * @param targetNodeIds identités des noeuds d'arrivée, une par colonne de la matrice
+     * @param maxCost coût au-delà duquel un itinéraire n'est pas recherché
+     * @return les matrices des coûts et des longueurs des meilleurs itinéraires, infinis pour les itinéraires
+     * inexistants ou plus coûteux que le coût maximal
+     * @throws java.util.concurrent.CancellationException si le fil d'exécution est interrompu pendant
+     * le calcul
+     */
+    RouteMatrix matrixBetween(int[] sourceNodeIds, int[] targetNodeIds, double maxCost) {
+        Buckets buckets = new Buckets();
+        SearchWorkspace backward = backwardWorkspaces.get();
+
+        for (int column = 0; column < targetNodeIds.length; column++) {
+            checkInterrupted();
+            backward.reset();
+            backward.reach(targetNodeIds[column], 0, SearchWorkspace.NO_PREDECESSOR, NO_ARC);
+            backward.heap().insertOrDecrease(targetNodeIds[column], 0);
+
+            while (!backward.heap().isEmpty() && backward.heap().minKey() <= maxCost) {
+                int nodeId = backward.heap().removeMin();
+                double nodeDistance = backward.distance(nodeId);
+                backward.settle(nodeId);
+
+                buckets.add(nodeId, column, nodeDistance, backward.predecessorEdge(nodeId));
+
+                relax(backward, nodeId, nodeDistance, false);
+            }
+        }
+        buckets.sort();
+
+        double[] costs = new double[sourceNodeIds.length * targetNodeIds.length];
+        double[] lengths = new double[costs.length];
+        int[] meetingNodeIds = new int[targetNodeIds.length];
+        int[] meetingEntries = new int[targetNodeIds.length];
+        SearchWorkspace forward = forwardWorkspaces.get();
+
+        for (int row = 0; row < sourceNodeIds.length; row++) {
+            checkInterrupted();
+            int offset = row * targetNodeIds.length;
+            Arrays.fill(costs, offset, offset + targetNodeIds.length, Double.POSITIVE_INFINITY);
+            Arrays.fill(lengths, offset, offset + targetNodeIds.length, Double.POSITIVE_INFINITY);
+
+            forward.reset();
+            forward.reach(sourceNodeIds[row], 0, SearchWorkspace.NO_PREDECESSOR, NO_ARC);
+            forward.heap().insertOrDecrease(sourceNodeIds[row], 0);
+
+            // Un noeud plus éloigné que le plus coûteux des meilleurs itinéraires ne peut en améliorer aucun
+            double rowBound = Double.POSITIVE_INFINITY;
+
+            while (!forward.heap().isEmpty() && forward.heap().minKey() <= maxCost
+                    && forward.heap().minKey() < rowBound) {
+                int nodeId = forward.heap().removeMin();
+                double nodeDistance = forward.distance(nodeId);
+                forward.settle(nodeId);
+
+                for (int entry = buckets.first(nodeId); entry != -1 && buckets.nodeId(entry) == nodeId;
+                     entry++) {
+                    int column = buckets.column(entry);
+                    double cost = nodeDistance + buckets.cost(entry);
+
+                    if (cost < costs[offset + column] && cost <= maxCost) {
+                        costs[offset + column] = cost;
+                        meetingNodeIds[column] = nodeId;
+                        meetingEntries[column] = entry;
+                        rowBound = maxOf(costs, offset, targetNodeIds.length);
+                    }
+                }
+
+                relax(forward, nodeId, nodeDistance, true);
+            }
+
+            for (int column = 0; column < targetNodeIds.length; column++) {
+                if (costs[offset + column] == Double.POSITIVE_INFINITY) continue;
+
+                lengths[offset + column] = searchPathLength(forward, meetingNodeIds[column])
+                        + buckets.length(meetingEntries[column]);
+            }
+        }
+
+        return new RouteMatrix(sourceNodeIds.length, targetNodeIds.length, costs, lengths);
+    }
+
+    /**
+     * Retourne le nombre d'arcs de la hiérarchie, raccourcis compris
+     * @return le nombre d'arcs
+     */
+    public int arcCount() {
+        return arcs.capacity() / ARC_BYTES;
+    }
+
+    /**
+     * Retourne le nombre de noeuds visités par la dernière recherche effectuée par le fil
+     * d'exécution courant, dans les deux directions
+     * @return le nombre de noeuds visités
+     */
+    int settledNodeCount() {
+        return forwardWorkspaces.get().settledCount() + backwardWorkspaces.get().settledCount();
+    }
+
+    /**
+     * Méthode outil qui initialise une recherche avec les noeuds rattachés à une position
+     * @param search espace de travail de la recherche
+     * @param anchors rattachements de la position
+     */
+    private static void seed(SearchWorkspace search, List<EdgeAnchor> anchors) {
+        for (int i = 0; i < anchors.size(); i++) {
+            EdgeAnchor anchor = anchors.get(i);
+
+            if (anchor.cost() < search.distance(anchor.nodeId())) {
+                search.reach(anchor.nodeId(), anchor.cost(), SearchWorkspace.NO_PREDECESSOR, i);
+                search.heap().insertOrDecrease(anchor.nodeId(), (float) anchor.cost());
+            }
+        }
+    }
+
+    /**
+     * Méthode outil qui effectue la recherche bidirectionnelle à partir des espaces de travail initialisés,
+     * en alternant les directions selon leur plus petite distance, jusqu'à ce que les deux directions
+     * atteignent le coût du meilleur itinéraire trouvé
+     * @param forward espace de travail de la recherche avant
+     * @param backward espace de travail de la recherche arrière
+     * @param upperBound coût au-delà duquel un itinéraire n'est pas retenu
+     * @return le noeud de rencontre du meilleur itinéraire de coût inférieur à la borne, -1 s'il n'existe pas
+     */
+    private int meetingNode(SearchWorkspace forward, SearchWorkspace backward, double upperBound) {
+        double bestDistance = upperBound;
+        int meetingNodeId = -1;
+
+        while (true) {
+            boolean forwardActive = !forward.heap().isEmpty() && forward.heap().minKey() < bestDistance;
+            boolean backwardActive = !backward.heap().isEmpty() && backward.heap().minKey() < bestDistance;
+
+            if (!forwardActive && !backwardActive) break;
+
+            boolean goForward = forwardActive
+                    && (!backwardActive || forward.heap().minKey() <= backward.heap().minKey());
+
+            SearchWorkspace search = goForward ? forward : backward;
+            SearchWorkspace other = goForward ? backward : forward;
+
+            int nodeId = search.heap().removeMin();
+            double nodeDistance = search.distance(nodeId);
+            search.settle(nodeId);
+
+            double throughDistance = nodeDistance + other.distance(nodeId);
+            if (throughDistance < bestDistance) {
+                bestDistance = throughDistance;
+                meetingNodeId = nodeId;
+            }
+
+            relax(search, nodeId, nodeDistance, goForward);
+        }
+
+        return meetingNodeId;
+    }
+
+    /**
+     * Méthode outil qui relâche les arcs sortants (recherche avant) ou entrants (recherche arrière) du noeud
+     * donné, qui vient d'être visité
+     * @param search espace de travail de la recherche
+     * @param nodeId identité du noeud
+     * @param nodeDistance distance du noeud
+     * @param goForward vrai pour une recherche avant, qui suit les arcs montants, faux pour une recherche
+     *                  arrière, qui suit les arcs descendants à rebours
+     */
+    private void relax(SearchWorkspace search, int nodeId, double nodeDistance, boolean goForward) {
+        int[] first = goForward ? firstUpArc : firstDownArc;
+        int[] arcIds = goForward ? upArcs : downArcs;
+
+        for (int i = first[nodeId]; i < first[nodeId + 1]; i++) {
+            int arcId = arcIds[i];
+            int nextNodeId = goForward ? arcTo(arcId) : arcFrom(arcId);
+
+            if (search.isSettled(nextNodeId)) continue;
+
+            double distance = nodeDistance + arcCost(arcId);
+
+            if (distance < search.distance(nextNodeId)) {
+                search.reach(nextNodeId, distance, nodeId, arcId);
+                search.heap().insertOrDecrease(nextNodeId, (float) distance);
+            }
+        }
+    }
+
+    /**
+     * Méthode outil qui calcule la longueur de l'itinéraire menant du noeud de départ d'une recherche au
+     * noeud donné, en dépliant les arcs prédécesseurs
+     * @param search espace de travail de la recherche
+     * @param nodeId identité du noeud, qui doit avoir été atteint
+     * @return la longueur en mètres
+     */
+    private double searchPathLength(SearchWorkspace search, int nodeId) {
+        double length = 0;
+
+        for (; search.predecessorNode(nodeId) != SearchWorkspace.NO_PREDECESSOR;
+             nodeId = search.predecessorNode(nodeId)) {
+            length += arcLength(search.predecessorEdge(nodeId));
+        }
+        return length;
+    }
+
+    /**
+     * Méthode outil qui calcule la longueur de l'arc donné, c.-à-d. la somme des longueurs des arêtes du
+     * graphe qu'il remplace
+     * @param arcId identité de l'arc
+     * @return la longueur en mètres
+     */
+    private double arcLength(int arcId) {
+        double length = 0;
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = arcId;
+
+        while (size > 0) {
+            int currentArcId = stack[--size];
+            int second = arcSecond(currentArcId);
+
+            if (second == NO_ARC) {
+                length += graph.edgeLength(arcFirst(currentArcId));
+            } else {
+                if (size + 2 > stack.length) stack = Arrays.copyOf(stack, 2 * stack.length);
+
+                stack[size++] = second;
+                stack[size++] = arcFirst(currentArcId);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Méthode outil qui retourne le plus grand des coûts d'une ligne de matrice
+     * @param costs matrice des coûts, ligne par ligne
+     * @param offset index du premier coût de la ligne
+     * @param count nombre de coûts de la ligne
+     * @return le plus grand coût, infini si l'un des itinéraires n'a pas encore été trouvé
+     */
+    private static double maxOf(double[] costs, int offset, int count) {
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int i = offset; i < offset + count; i++) {
+            max = Math.max(max, costs[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Méthode outil qui abandonne le calcul si le fil d'exécution a été interrompu ; les recherches dans la
+     * hiérarchie visitant trop peu de noeuds pour que SearchWorkspace le vérifie, elle est appelée avant
+     * chacune des recherches d'un calcul qui en comporte plusieurs
+     * @throws CancellationException si le fil d'exécution a été interrompu
+     */
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+    }
+
+    /**
+     * Méthode outil qui retourne les arêtes du graphe reliant le noeud de départ de la recherche avant à
+     * celui de la recherche arrière en passant par le noeud de rencontre, raccourcis dépliés
+     * @param forward espace de travail de la recherche avant
+     * @param backward espace de travail de la recherche arrière
+     * @param meetingNodeId identité du noeud de rencontre
+     * @return les identités des arêtes, dans l'ordre
+     */
+    private int[] unpackPath(SearchWorkspace forward, SearchWorkspace backward, int meetingNodeId) {
+        List<Integer> pathArcs = new ArrayList<>();
+        for (int nodeId = meetingNodeId; forward.predecessorNode(nodeId) != SearchWorkspace.NO_PREDECESSOR;
+             nodeId = forward.predecessorNode(nodeId)) {
+            pathArcs.add(forward.predecessorEdge(nodeId));
+        }
+        Collections.reverse(pathArcs);
+        for (int nodeId = meetingNodeId; backward.predecessorNode(nodeId) != SearchWorkspace.NO_PREDECESSOR;
+             nodeId = backward.predecessorNode(nodeId)) {
+            pathArcs.add(backward.predecessorEdge(nodeId));
+        }
+
+        List<Integer> edgeIds = new ArrayList<>();
+        for (int arcId : pathArcs) {
+            unpack(arcId, edgeIds);
+        }
+        return edgeIds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Méthode outil qui retourne le noeud de départ d'une recherche dont est issu le noeud donné
+     * @param search espace de travail de la recherche
+     * @param nodeId identité du noeud, qui doit avoir été atteint
+     * @return l'identité du noeud de départ
+     */
+    private static int origin(SearchWorkspace search, int nodeId) {
+        while (search.predecessorNode(nodeId) != SearchWorkspace.NO_PREDECESSOR) {
+            nodeId = search.predecessorNode(nodeId);
+        }
+        return nodeId;
+    }
+
+    /**
+     * Méthode outil qui déplie l'arc donné en arêtes du graphe, ajoutées dans l'ordre à la liste donnée
+     * @param arcId identité de l'arc
+     * @param edgeIds liste des identités des arêtes de l'itinéraire
+     */
+    private void unpack(int arcId, List<Integer> edgeIds) {
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = arcId;
+
+        while (size > 0) {
+            int currentArcId = stack[--size];
+            int second = arcSecond(currentArcId);
+
+            if (second == NO_ARC) {
+                edgeIds.add(arcFirst(currentArcId));
+            } else {
+                if (size + 2 > stack.length) stack = Arrays.copyOf(stack, 2 * stack.length);
+
+                stack[size++] = second;
+                stack[size++] = arcFirst(currentArcId);
+            }
+        }
+    }
+
+    /**
+     * Méthode outil qui vérifie si l'arc donné mène vers un noeud de rang supérieur
+     * @param arcId identité de l'arc
+     * @return true si l'arc est montant
+     */
+    private boolean isUpward(int arcId) {
+        return ranks.get(arcTo(arcId)) > ranks.get(arcFrom(arcId));
+    }
+
+    /**
+     * Méthode outil qui retourne le noeud de départ de l'arc donné
+     * @param arcId identité de l'arc
+     * @return l'identité du noeud
+     */
+    private int arcFrom(int arcId) {
+        return arcs.getInt(arcId * ARC_BYTES + OFFSET_FROM);
+    }
+
+    /**
+     * Méthode outil qui retourne le noeud d'arrivée de l'arc donné
+     * @param arcId identité de l'arc
+     * @return l'identité du noeud
+     */
+    private int arcTo(int arcId) {
+        return arcs.getInt(arcId * ARC_BYTES + OFFSET_TO);
+    }
+
+    /**
+     * Méthode outil qui retourne le coût de l'arc donné
+     * @param arcId identité de l'arc
+     * @return le coût
+     */
+    private float arcCost(int arcId) {
+        return arcs.getFloat(arcId * ARC_BYTES + OFFSET_COST);
+    }
+
+    /**
+     * Méthode outil qui retourne l'arête du graphe d'un arc simple, ou le premier arc remplacé par un raccourci
+     * @param arcId identité de l'arc
+     * @return l'identité de l'arête ou de l'arc
+     */
+    private int arcFirst(int arcId) {
+        return arcs.getInt(arcId * ARC_BYTES + OFFSET_FIRST);
+    }
+
+    /**
+     * Méthode outil qui retourne le second arc remplacé par un raccourci, NO_ARC pour un arc simple
+     * @param arcId identité de l'arc
+     * @return l'identité de l'arc
+     */
+    private int arcSecond(int arcId) {
+        return arcs.getInt(arcId * ARC_BYTES + OFFSET_SECOND);
+    }
+
+    /**
+     * Méthode outil qui projette en mémoire le fichier de nom donné du répertoire donné
+     * @param pathString nom du fichier
+     * @param basePath le répertoire
+     * @return le contenu du fichier
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    private static ByteBuffer extractBufferFromPath(String pathString, Path basePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(basePath.resolve(pathString))) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Classe imbriquée qui représente les seaux de l'algorithme des seaux : les entrées déposées par les
+     * recherches arrière, chacune formée d'un noeud, de l'index d'un noeud d'arrivée, du coût qui les
+     * sépare et de l'arc prédécesseur du noeud dans la recherche arrière, stockées dans des tableaux de
+     * types primitifs puis triées par noeud
+     */
+    private final class Buckets {
+
+        /**
+         * Identité du noeud de chaque entrée
+         */
+        private int[] nodeIds = new int[64];
+
+        /**
+         * Index du noeud d'arrivée de chaque entrée
+         */
+        private int[] columns = new int[64];
+
+        /**
+         * Coût de chaque entrée
+         */
+        private double[] costs = new double[64];
+
+        /**
+         * Arc menant du noeud de chaque entrée vers le noeud d'arrivée, NO_ARC pour le noeud d'arrivée lui-même
+         */
+        private int[] arcIds = new int[64];
+
+        /**
+         * Longueur de l'itinéraire menant du noeud de chaque entrée à son noeud d'arrivée, NaN tant qu'elle
+         * n'a pas été calculée
+         */
+        private double[] lengths;
+
+        /**
+         * Nombre d'entrées
+         */
+        private int size;
+
+        /**
+         * Ajoute une entrée
+         * @param nodeId identité du noeud
+         * @param column index du noeud d'arrivée
+         * @param cost coût séparant le noeud du noeud d'arrivée
+         * @param arcId arc prédécesseur du noeud dans la recherche arrière
+         */
+        void add(int nodeId, int column, double cost, int arcId) {
+            if (size == nodeIds.length) {
+                nodeIds = Arrays.copyOf(nodeIds, 2 * size);
+                columns = Arrays.copyOf(columns, 2 * size);
+                costs = Arrays.copyOf(costs, 2 * size);
+                arcIds = Arrays.copyOf(arcIds, 2 * size);
+            }
+            nodeIds[size] = nodeId;
+            columns[size] = column;
+            costs[size] = cost;
+            arcIds[size] = arcId;
+            size += 1;
+        }
+
+        /**
+         * Trie les entrées par noeud, ce qui regroupe les entrées de chaque seau ; aucune entrée ne peut
+         * être ajoutée ensuite
+         */
+        void sort() {
+            long[] keys = new long[size];
+            for (int entry = 0; entry < size; entry++) {
+                keys[entry] = (long) nodeIds[entry] << Integer.SIZE | entry;
+            }
+            Arrays.sort(keys);
+
+            int[] sortedNodeIds = new int[size];
+            int[] sortedColumns = new int[size];
+            double[] sortedCosts = new double[size];
+            int[] sortedArcIds = new int[size];
+
+            for (int i = 0; i < size; i++) {
+                int entry = (int) keys[i];
+                sortedNodeIds[i] = nodeIds[entry];
+                sortedColumns[i] = columns[entry];
+                sortedCosts[i] = costs[entry];
+                sortedArcIds[i] = arcIds[entry];
+            }
+
+            nodeIds = sortedNodeIds;
+            columns = sortedColumns;
+            costs = sortedCosts;
+            arcIds = sortedArcIds;
+            lengths = new double[size];
+            Arrays.fill(lengths, Double.NaN);
+        }
+
+        /**
+         * Retourne la première entrée du seau du noeud donné
+         * @param nodeId identité du noeud
+         * @return l'index de l'entrée, -1 si le seau est vide
+         */
+        int first(int nodeId) {
+            int low = 0;
+            int high = size;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (nodeIds[middle] < nodeId) low = middle + 1; else high = middle;
+            }
+            return low < size && nodeIds[low] == nodeId ? low : -1;
+        }
+
+        /**
+         * Retourne le noeud de l'entrée donnée
+         * @param entry index de l'entrée
+         * @return l'identité du noeud
+         */
+        int nodeId(int entry) {
+            return entry < size ? nodeIds[entry] : -1;
+        }
+
+        /**
+         * Retourne l'index du noeud d'arrivée de l'entrée donnée
+         * @param entry index de l'entrée
+         * @return l'index du noeud d'arrivée
+         */
+        int column(int entry) {
+            return columns[entry];
+        }
+
+        /**
+         * Retourne le coût de l'entrée donnée
+         * @param entry index de l'entrée
+         * @return le coût séparant le noeud de l'entrée de son noeud d'arrivée
+         */
+        double cost(int entry) {
+            return costs[entry];
+        }
+
+        /**
+         * Retourne la longueur de l'itinéraire menant du noeud de l'entrée donnée à son noeud d'arrivée ; les
+         * entrées des noeuds suivants de l'itinéraire se trouvent dans leurs seaux, et leurs longueurs y sont
+         * mémorisées au fur et à mesure
+         * @param entry index de l'entrée
+         * @return la longueur en mètres
+         */
+        double length(int entry) {
+            int[] path = new int[16];
+            int pathSize = 0;
+
+            while (Double.isNaN(lengths[entry]) && arcIds[entry] != NO_ARC) {
+                if (pathSize == path.length) path = Arrays.copyOf(path, 2 * pathSize);
+                path[pathSize++] = entry;
+
+                entry = entryOf(arcTo(arcIds[entry]), columns[entry]);
+            }
+            if (Double.isNaN(lengths[entry])) lengths[entry] = 0;
+
+            double length = lengths[entry];
+            while (pathSize > 0) {
+                entry = path[--pathSize];
+                length += arcLength(arcIds[entry]);
+                lengths[entry] = length;
+            }
+            return length;
+        }
+
+        /**
+         * Méthode outil qui retourne l'entrée du seau du noeud donné correspondant au noeud d'arrivée donné
+         * @param nodeId identité du noeud
+         * @param column index du noeud d'arrivée
+         * @return l'index de l'entrée, qui doit exister
+         */
+        private int entryOf(int nodeId, int column) {
+            int entry = first(nodeId);
+
+            while (columns[entry] != column) entry += 1;
+            return entry;
+        }
+    }
+}
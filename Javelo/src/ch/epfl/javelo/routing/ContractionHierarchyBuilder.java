@@ -0,0 +1,469 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Outil de construction hors ligne de la hiérarchie de contraction lue par ContractionHierarchy.
+ * Les noeuds sont contractés un à un, par ordre croissant de priorité : la priorité d'un noeud est
+ * le nombre de raccourcis que sa contraction ajouterait, moins le nombre d'arcs qu'elle supprimerait,
+ * plus le nombre de ses voisins déjà contractés. Les priorités sont mises à jour paresseusement :
+ * celle du noeud retiré de la file est recalculée, et il y est remis si elle a augmenté au-delà
+ * de la plus petite priorité restante.
+ * Lors de la contraction d'un noeud v, un raccourci u -> w est ajouté pour chaque couple d'arcs
+ * u -> v -> w, à moins qu'une recherche de témoin, limitée en nombre de noeuds visités, ne trouve
+ * un chemin de coût au plus égal évitant v.
+ * Usage : ContractionHierarchyBuilder [répertoire du graphe, par défaut Javelo/javelo-data]
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class ContractionHierarchyBuilder {
+
+    /**
+     * Nombre maximal de noeuds visités par une recherche de témoin lors du calcul d'une priorité
+     */
+    private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+    /**
+     * Nombre maximal de noeuds visités par une recherche de témoin lors d'une contraction
+     */
+    private static final int CONTRACTION_SETTLE_LIMIT = 500;
+
+    /**
+     * Capacité initiale des listes d'arcs de chaque noeud
+     */
+    private static final int INITIAL_ADJACENCY_CAPACITY = 4;
+
+    /**
+     * Graphe Javelo
+     */
+    private final Graph graph;
+
+    /**
+     * Noeud de départ de chaque arc
+     */
+    private int[] arcFrom;
+
+    /**
+     * Noeud d'arrivée de chaque arc
+     */
+    private int[] arcTo;
+
+    /**
+     * Coût de chaque arc
+     */
+    private float[] arcCost;
+
+    /**
+     * Arête du graphe de chaque arc simple, premier arc remplacé de chaque raccourci
+     */
+    private int[] arcFirst;
+
+    /**
+     * Second arc remplacé de chaque raccourci, NO_ARC pour un arc simple
+     */
+    private int[] arcSecond;
+
+    /**
+     * Nombre d'arcs créés
+     */
+    private int arcCount;
+
+    /**
+     * Arcs sortant de chaque noeud dans le graphe restant à contracter
+     */
+    private final int[][] outArcs;
+
+    /**
+     * Nombre d'arcs sortant de chaque noeud
+     */
+    private final int[] outCounts;
+
+    /**
+     * Arcs entrant dans chaque noeud dans le graphe restant à contracter
+     */
+    private final int[][] inArcs;
+
+    /**
+     * Nombre d'arcs entrant dans chaque noeud
+     */
+    private final int[] inCounts;
+
+    /**
+     * Indique si chaque noeud a été contracté
+     */
+    private final boolean[] contracted;
+
+    /**
+     * Nombre de voisins déjà contractés de chaque noeud
+     */
+    private final int[] contractedNeighbours;
+
+    /**
+     * Espace de travail des recherches de témoin
+     */
+    private final SearchWorkspace witnessWorkspace;
+
+    /**
+     * Constructeur privé de l'outil, qui crée un arc par arête de coût fini du graphe
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     */
+    private ContractionHierarchyBuilder(Graph graph, CostFunction costFunction) {
+        int nodeCount = graph.nodeCount();
+
+        this.graph = graph;
+        this.arcFrom = new int[graph.edgeCount()];
+        this.arcTo = new int[graph.edgeCount()];
+        this.arcCost = new float[graph.edgeCount()];
+        this.arcFirst = new int[graph.edgeCount()];
+        this.arcSecond = new int[graph.edgeCount()];
+        this.outArcs = new int[nodeCount][];
+        this.outCounts = new int[nodeCount];
+        this.inArcs = new int[nodeCount][];
+        this.inCounts = new int[nodeCount];
+        this.contracted = new boolean[nodeCount];
+        this.contractedNeighbours = new int[nodeCount];
+        this.witnessWorkspace = new SearchWorkspace(nodeCount);
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            outArcs[nodeId] = new int[INITIAL_ADJACENCY_CAPACITY];
+            inArcs[nodeId] = new int[INITIAL_ADJACENCY_CAPACITY];
+        }
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int targetNodeId = graph.edgeTargetNodeId(edgeId);
+                double cost = costFunction.costFactor(nodeId, edgeId) * graph.edgeLength(edgeId);
+
+                if (targetNodeId == nodeId || cost == Double.POSITIVE_INFINITY) continue;
+
+                addArc(nodeId, targetNodeId, (float) cost, edgeId, ContractionHierarchy.NO_ARC);
+            }
+        }
+    }
+
+    /**
+     * Construit la hiérarchie de contraction du graphe du répertoire donné pour la fonction de coût CityBikeCF
+     * @param args répertoire du graphe (optionnel)
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "Javelo/javelo-data");
+
+        Graph graph = Graph.loadFrom(basePath);
+
+        long start = System.nanoTime();
+        int arcCount = build(graph, new CityBikeCF(graph), basePath);
+
+        System.out.printf("hiérarchie de %d noeuds et %d arcs construite en %.1f s%n",
+                graph.nodeCount(), arcCount, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Construit la hiérarchie de contraction du graphe donné pour la fonction de coût donnée et l'écrit
+     * dans les fichiers ch_ranks.bin et ch_arcs.bin du répertoire donné
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param basePath répertoire dans lequel écrire les fichiers
+     * @return le nombre d'arcs de la hiérarchie, raccourcis compris
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static int build(Graph graph, CostFunction costFunction, Path basePath) throws IOException {
+        Preconditions.checkArgument(graph.nodeCount() > 0);
+
+        ContractionHierarchyBuilder builder = new ContractionHierarchyBuilder(graph, costFunction);
+        int[] ranks = builder.contractAll();
+
+        builder.write(ranks, basePath);
+
+        return builder.arcCount;
+    }
+
+    /**
+     * Méthode outil qui contracte tous les noeuds par ordre de priorité
+     * @return le rang de chaque noeud, c.-à-d. sa position dans l'ordre de contraction
+     */
+    private int[] contractAll() {
+        int nodeCount = graph.nodeCount();
+        int[] ranks = new int[nodeCount];
+        IndexedMinHeap queue = new IndexedMinHeap(nodeCount);
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            queue.insertOrDecrease(nodeId, priority(nodeId));
+        }
+
+        int rank = 0;
+        while (!queue.isEmpty()) {
+            int nodeId = queue.removeMin();
+            float priority = priority(nodeId);
+
+            if (!queue.isEmpty() && priority > queue.minKey()) {
+                queue.insertOrDecrease(nodeId, priority);
+                continue;
+            }
+
+            contract(nodeId, CONTRACTION_SETTLE_LIMIT, false);
+            contracted[nodeId] = true;
+            ranks[nodeId] = rank++;
+
+            updateNeighbours(nodeId, outArcs[nodeId], outCounts[nodeId], true, queue);
+            updateNeighbours(nodeId, inArcs[nodeId], inCounts[nodeId], false, queue);
+        }
+
+        return ranks;
+    }
+
+    /**
+     * Méthode outil qui met à jour les voisins du noeud venant d'être contracté : ses arcs sont retirés
+     * de leurs listes, leur nombre de voisins contractés augmente et leur priorité est recalculée
+     * @param nodeId identité du noeud contracté
+     * @param arcs arcs du noeud contracté
+     * @param count nombre d'arcs
+     * @param outgoing true si les arcs sont sortants, false s'ils sont entrants
+     * @param queue file de priorité des noeuds restant à contracter
+     */
+    private void updateNeighbours(int nodeId, int[] arcs, int count, boolean outgoing, IndexedMinHeap queue) {
+        for (int i = 0; i < count; i++) {
+            int neighbourId = outgoing ? arcTo[arcs[i]] : arcFrom[arcs[i]];
+
+            if (contracted[neighbourId]) continue;
+
+            if (outgoing) {
+                inCounts[neighbourId] = removeContracted(inArcs[neighbourId], inCounts[neighbourId], false);
+            } else {
+                outCounts[neighbourId] = removeContracted(outArcs[neighbourId], outCounts[neighbourId], true);
+            }
+            contractedNeighbours[neighbourId] += 1;
+            queue.insertOrDecrease(neighbourId, priority(neighbourId));
+        }
+    }
+
+    /**
+     * Méthode outil qui calcule la priorité de contraction du noeud donné
+     * @param nodeId identité du noeud
+     * @return la priorité, plus elle est petite plus le noeud est contracté tôt
+     */
+    private float priority(int nodeId) {
+        int shortcuts = contract(nodeId, SIMULATION_SETTLE_LIMIT, true);
+
+        return shortcuts - inCounts[nodeId] - outCounts[nodeId] + contractedNeighbours[nodeId];
+    }
+
+    /**
+     * Méthode outil qui contracte le noeud donné, ou simule sa contraction
+     * @param nodeId identité du noeud
+     * @param settleLimit nombre maximal de noeuds visités par chaque recherche de témoin
+     * @param simulate true pour uniquement compter les raccourcis, sans les ajouter
+     * @return le nombre de raccourcis nécessaires
+     */
+    private int contract(int nodeId, int settleLimit, boolean simulate) {
+        int shortcuts = 0;
+
+        for (int i = 0; i < inCounts[nodeId]; i++) {
+            int inArcId = inArcs[nodeId][i];
+            int fromNodeId = arcFrom[inArcId];
+
+            float maxOutCost = -1;
+            for (int j = 0; j < outCounts[nodeId]; j++) {
+                int outArcId = outArcs[nodeId][j];
+                if (arcTo[outArcId] != fromNodeId) maxOutCost = Math.max(maxOutCost, arcCost[outArcId]);
+            }
+            if (maxOutCost < 0) continue;
+
+            searchWitnesses(fromNodeId, nodeId, arcCost[inArcId] + maxOutCost, settleLimit);
+
+            for (int j = 0; j < outCounts[nodeId]; j++) {
+                int outArcId = outArcs[nodeId][j];
+                int toNodeId = arcTo[outArcId];
+                float cost = arcCost[inArcId] + arcCost[outArcId];
+
+                if (toNodeId == fromNodeId || witnessWorkspace.distance(toNodeId) <= cost) continue;
+
+                shortcuts += 1;
+                if (!simulate) addArc(fromNodeId, toNodeId, cost, inArcId, outArcId);
+            }
+        }
+
+        return shortcuts;
+    }
+
+    /**
+     * Méthode outil qui effectue une recherche de témoins depuis le noeud donné dans le graphe restant
+     * à contracter, sans passer par le noeud en cours de contraction ; les coûts sont laissés dans
+     * l'espace de travail
+     * @param sourceNodeId identité du noeud source
+     * @param excludedNodeId identité du noeud en cours de contraction
+     * @param maxCost coût au-delà duquel la recherche s'arrête
+     * @param settleLimit nombre maximal de noeuds visités
+     */
+    private void searchWitnesses(int sourceNodeId, int excludedNodeId, double maxCost, int settleLimit) {
+        witnessWorkspace.reset();
+        witnessWorkspace.setDistance(sourceNodeId, 0);
+
+        IndexedMinHeap enExploration = witnessWorkspace.heap();
+        enExploration.insertOrDecrease(sourceNodeId, 0);
+
+        while (!enExploration.isEmpty()
+                && enExploration.minKey() <= maxCost
+                && witnessWorkspace.settledCount() < settleLimit) {
+            int nodeId = enExploration.removeMin();
+            double nodeDistance = witnessWorkspace.distance(nodeId);
+            witnessWorkspace.settle(nodeId);
+
+            for (int i = 0; i < outCounts[nodeId]; i++) {
+                int arcId = outArcs[nodeId][i];
+                int targetNodeId = arcTo[arcId];
+
+                if (targetNodeId == excludedNodeId || witnessWorkspace.isSettled(targetNodeId)) continue;
+
+                double distance = nodeDistance + arcCost[arcId];
+
+                if (distance < witnessWorkspace.distance(targetNodeId)) {
+                    witnessWorkspace.setDistance(targetNodeId, distance);
+                    enExploration.insertOrDecrease(targetNodeId, (float) distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Méthode outil qui ajoute un arc au graphe restant à contracter, à moins qu'un arc reliant déjà les
+     * deux mêmes noeuds ne soit au moins aussi bon ; un tel arc moins bon est remplacé
+     * @param fromNodeId identité du noeud de départ
+     * @param toNodeId identité du noeud d'arrivée
+     * @param cost coût de l'arc
+     * @param first arête du graphe, ou premier arc remplacé par le raccourci
+     * @param second second arc remplacé par le raccourci, ou NO_ARC
+     */
+    private void addArc(int fromNodeId, int toNodeId, float cost, int first, int second) {
+        for (int i = 0; i < outCounts[fromNodeId]; i++) {
+            int arcId = outArcs[fromNodeId][i];
+
+            if (arcTo[arcId] != toNodeId) continue;
+            if (arcCost[arcId] <= cost) return;
+
+            outCounts[fromNodeId] = remove(outArcs[fromNodeId], outCounts[fromNodeId], arcId);
+            inCounts[toNodeId] = remove(inArcs[toNodeId], inCounts[toNodeId], arcId);
+            break;
+        }
+
+        if (arcCount == arcFrom.length) {
+            int capacity = 2 * arcCount;
+            arcFrom = Arrays.copyOf(arcFrom, capacity);
+            arcTo = Arrays.copyOf(arcTo, capacity);
+            arcCost = Arrays.copyOf(arcCost, capacity);
+            arcFirst = Arrays.copyOf(arcFirst, capacity);
+            arcSecond = Arrays.copyOf(arcSecond, capacity);
+        }
+
+        int arcId = arcCount++;
+        arcFrom[arcId] = fromNodeId;
+        arcTo[arcId] = toNodeId;
+        arcCost[arcId] = cost;
+        arcFirst[arcId] = first;
+        arcSecond[arcId] = second;
+
+        outArcs[fromNodeId] = append(outArcs[fromNodeId], outCounts[fromNodeId]++, arcId);
+        inArcs[toNodeId] = append(inArcs[toNodeId], inCounts[toNodeId]++, arcId);
+    }
+
+    /**
+     * Méthode outil qui ajoute un arc à la fin d'une liste d'arcs, en l'agrandissant si nécessaire
+     * @param arcs liste d'arcs
+     * @param count nombre d'arcs de la liste
+     * @param arcId identité de l'arc ajouté
+     * @return la liste, éventuellement agrandie
+     */
+    private static int[] append(int[] arcs, int count, int arcId) {
+        if (count == arcs.length) arcs = Arrays.copyOf(arcs, 2 * arcs.length);
+
+        arcs[count] = arcId;
+        return arcs;
+    }
+
+    /**
+     * Méthode outil qui retire un arc d'une liste d'arcs
+     * @param arcs liste d'arcs
+     * @param count nombre d'arcs de la liste
+     * @param arcId identité de l'arc retiré
+     * @return le nouveau nombre d'arcs de la liste
+     */
+    private static int remove(int[] arcs, int count, int arcId) {
+        for (int i = 0; i < count; i++) {
+            if (arcs[i] == arcId) {
+                arcs[i] = arcs[count - 1];
+                return count - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Méthode outil qui retire d'une liste d'arcs ceux reliant un noeud contracté
+     * @param arcs liste d'arcs
+     * @param count nombre d'arcs de la liste
+     * @param outgoing true si les arcs sont sortants, false s'ils sont entrants
+     * @return le nouveau nombre d'arcs de la liste
+     */
+    private int removeContracted(int[] arcs, int count, boolean outgoing) {
+        int kept = 0;
+
+        for (int i = 0; i < count; i++) {
+            int neighbourId = outgoing ? arcTo[arcs[i]] : arcFrom[arcs[i]];
+            if (!contracted[neighbourId]) arcs[kept++] = arcs[i];
+        }
+        return kept;
+    }
+
+    /**
+     * Méthode outil qui écrit les rangs et les arcs dans les fichiers du répertoire donné
+     * @param ranks rang de chaque noeud
+     * @param basePath répertoire dans lequel écrire les fichiers
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    private void write(int[] ranks, Path basePath) throws IOException {
+        try (FileChannel channel = openForWriting(basePath.resolve(ContractionHierarchy.RANKS_FILE_NAME))) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) ranks.length * Integer.BYTES);
+            buffer.asIntBuffer().put(ranks);
+            buffer.force();
+        }
+
+        try (FileChannel channel = openForWriting(basePath.resolve(ContractionHierarchy.ARCS_FILE_NAME))) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) arcCount * ContractionHierarchy.ARC_BYTES);
+
+            for (int arcId = 0; arcId < arcCount; arcId++) {
+                int offset = arcId * ContractionHierarchy.ARC_BYTES;
+                buffer.putInt(offset + ContractionHierarchy.OFFSET_FROM, arcFrom[arcId]);
+                buffer.putInt(offset + ContractionHierarchy.OFFSET_TO, arcTo[arcId]);
+                buffer.putFloat(offset + ContractionHierarchy.OFFSET_COST, arcCost[arcId]);
+                buffer.putInt(offset + ContractionHierarchy.OFFSET_FIRST, arcFirst[arcId]);
+                buffer.putInt(offset + ContractionHierarchy.OFFSET_SECOND, arcSecond[arcId]);
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Méthode outil qui ouvre en lecture et écriture le fichier donné, en le vidant
+     * @param path chemin d'accès du fichier
+     * @return le canal du fichier
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    private static FileChannel openForWriting(Path path) throws IOException {
+        return FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
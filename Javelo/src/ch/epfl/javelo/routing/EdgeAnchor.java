@@ -0,0 +1,251 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.data.Graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enregistrement qui représente le rattachement au graphe d'une extrémité d'itinéraire située au milieu
+ * d'une arête : la portion d'arête reliant cette extrémité à un noeud, et son coût.
+ * Une extrémité de départ est rattachée au noeud d'arrivée de son arête et, au moyen de l'arête de sens
+ * opposé, à son noeud de départ ; une extrémité d'arrivée l'est symétriquement. Une extrémité située
+ * exactement sur un noeud y est rattachée par une portion de longueur nulle, même sans arête de sens opposé.
+ *
+ * @param nodeId identité du noeud rattaché, NO_NODE pour une portion reliant directement les deux extrémités
+ * @param cost coût de la portion d'arête
+ * @param edgeId identité de l'arête dont la portion fait partie
+ * @param fromPosition position du début de la portion le long de l'arête
+ * @param toPosition position de la fin de la portion le long de l'arête
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+record EdgeAnchor(int nodeId, double cost, int edgeId, double fromPosition, double toPosition) {
+
+    /**
+     * Identité du noeud d'une portion reliant directement les deux extrémités d'un itinéraire
+     */
+    static final int NO_NODE = -1;
+
+    /**
+     * Retourne les rattachements de coût fini d'une extrémité de départ
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param start l'extrémité de départ
+     * @return les rattachements, au plus deux
+     */
+    static List<EdgeAnchor> startAnchors(Graph graph, CostFunction costFunction, EdgePosition start) {
+        List<EdgeAnchor> anchors = new ArrayList<>(2);
+        int edgeId = start.edgeId();
+        double length = graph.edgeLength(edgeId);
+        double position = clampedPosition(graph, start);
+
+        addIfFinite(anchors, graph, costFunction, graph.edgeTargetNodeId(edgeId), edgeId, position, length);
+
+        int twinEdgeId = twinEdgeId(graph, edgeId);
+        if (position == 0) {
+            addIfFinite(anchors, graph, costFunction, graph.edgeSourceNodeId(edgeId), edgeId, 0, 0);
+        } else if (twinEdgeId != -1) {
+            addIfFinite(anchors, graph, costFunction, graph.edgeTargetNodeId(twinEdgeId),
+                    twinEdgeId, length - position, length);
+        }
+        return anchors;
+    }
+
+    /**
+     * Retourne les rattachements de coût fini d'une extrémité d'arrivée
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param end l'extrémité d'arrivée
+     * @return les rattachements, au plus deux
+     */
+    static List<EdgeAnchor> endAnchors(Graph graph, CostFunction costFunction, EdgePosition end) {
+        List<EdgeAnchor> anchors = new ArrayList<>(2);
+        int edgeId = end.edgeId();
+        double length = graph.edgeLength(edgeId);
+        double position = clampedPosition(graph, end);
+
+        addIfFinite(anchors, graph, costFunction, graph.edgeSourceNodeId(edgeId), edgeId, 0, position);
+
+        int twinEdgeId = twinEdgeId(graph, edgeId);
+        if (position == length) {
+            addIfFinite(anchors, graph, costFunction, graph.edgeTargetNodeId(edgeId), edgeId, length, length);
+        } else if (twinEdgeId != -1) {
+            addIfFinite(anchors, graph, costFunction, graph.edgeSourceNodeId(twinEdgeId),
+                    twinEdgeId, 0, length - position);
+        }
+        return anchors;
+    }
+
+    /**
+     * Retourne la portion d'arête reliant directement les deux extrémités données, lorsqu'elles se trouvent
+     * sur la même arête ou sur deux arêtes de sens opposé reliant les mêmes noeuds ; si les extrémités se
+     * suivent dans le mauvais ordre sur l'arête d'arrivée, la portion est prise sur son arête de sens opposé
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param start l'extrémité de départ
+     * @param end l'extrémité d'arrivée
+     * @return la portion d'arête, null si elle n'existe pas, n'est pas praticable ou est de longueur nulle
+     */
+    static EdgeAnchor direct(Graph graph, CostFunction costFunction, EdgePosition start, EdgePosition end) {
+        int edgeId = end.edgeId();
+        double length = graph.edgeLength(edgeId);
+        double startPosition = clampedPosition(graph, start);
+        double endPosition = clampedPosition(graph, end);
+
+        if (start.edgeId() != edgeId) {
+            if (twinEdgeId(graph, start.edgeId()) != edgeId) return null;
+            startPosition = length - startPosition;
+        }
+        // Une portion de longueur nulle ne forme pas un itinéraire, les deux extrémités étant confondues
+        if (startPosition == endPosition) return null;
+
+        if (startPosition > endPosition) {
+            edgeId = twinEdgeId(graph, edgeId);
+            if (edgeId == -1) return null;
+
+            startPosition = length - startPosition;
+            endPosition = length - endPosition;
+        }
+
+        List<EdgeAnchor> anchors = new ArrayList<>(1);
+        addIfFinite(anchors, graph, costFunction, NO_NODE, edgeId, startPosition, endPosition);
+        return anchors.isEmpty() ? null : anchors.get(0);
+    }
+
+    /**
+     * Vérifie si les deux positions données désignent le même point du graphe : le même noeud, ou la même
+     * position le long d'une arête ou de son arête de sens opposé
+     * @param graph le graphe
+     * @param first la première position
+     * @param second la seconde position
+     * @return true si les deux positions sont confondues
+     */
+    static boolean sameLocation(Graph graph, EdgePosition first, EdgePosition second) {
+        int firstNodeId = nodeAt(graph, first);
+        if (firstNodeId != NO_NODE) return firstNodeId == nodeAt(graph, second);
+
+        double firstPosition = clampedPosition(graph, first);
+        double secondPosition = clampedPosition(graph, second);
+
+        if (first.edgeId() == second.edgeId()) return firstPosition == secondPosition;
+
+        return twinEdgeId(graph, first.edgeId()) == second.edgeId()
+                && graph.edgeLength(second.edgeId()) - firstPosition == secondPosition;
+    }
+
+    /**
+     * Construit l'itinéraire formé de la portion de départ, des arêtes données puis de la portion d'arrivée ;
+     * les portions de longueur nulle sont omises, sauf si l'itinéraire serait vide
+     * @param graph le graphe
+     * @param start rattachement de l'extrémité de départ
+     * @param edges arêtes reliant le noeud de départ au noeud d'arrivée
+     * @param end rattachement de l'extrémité d'arrivée, null si la portion de départ relie les deux extrémités
+     * @return l'itinéraire simple
+     */
+    static Route route(Graph graph, EdgeAnchor start, List<Edge> edges, EdgeAnchor end) {
+        List<Edge> routeEdges = new ArrayList<>(edges.size() + 2);
+
+        if (start.length() > 0) routeEdges.add(start.toEdge(graph));
+        routeEdges.addAll(edges);
+        if (end != null && end.length() > 0) routeEdges.add(end.toEdge(graph));
+
+        if (routeEdges.isEmpty()) routeEdges.add(start.toEdge(graph));
+
+        return new SingleRoute(routeEdges);
+    }
+
+    /**
+     * Retourne la longueur de la portion d'arête
+     * @return la longueur, en mètres
+     */
+    double length() {
+        return toPosition - fromPosition;
+    }
+
+    /**
+     * Retourne la portion d'arête sous forme d'arête d'itinéraire, dont les noeuds sont ceux de l'arête entière
+     * @param graph le graphe
+     * @return l'arête d'itinéraire
+     */
+    Edge toEdge(Graph graph) {
+        Edge edge = Edge.of(graph, edgeId, graph.edgeSourceNodeId(edgeId), graph.edgeTargetNodeId(edgeId));
+        double offset = fromPosition;
+
+        return new Edge(edge.fromNodeId(), edge.toNodeId(),
+                edge.pointAt(fromPosition), edge.pointAt(toPosition),
+                length(), position -> edge.elevationAt(offset + position));
+    }
+
+    /**
+     * Retourne l'identité de l'arête de sens opposé à l'arête donnée, c.-à-d. de l'arête reliant ses noeuds
+     * en sens inverse et provenant de la même voie
+     * @param graph le graphe
+     * @param edgeId identité de l'arête
+     * @return l'identité de l'arête de sens opposé, -1 si elle n'existe pas
+     */
+    static int twinEdgeId(Graph graph, int edgeId) {
+        int sourceNodeId = graph.edgeSourceNodeId(edgeId);
+        int targetNodeId = graph.edgeTargetNodeId(edgeId);
+
+        for (int i = 0; i < graph.nodeOutDegree(targetNodeId); i++) {
+            int otherEdgeId = graph.nodeOutEdgeId(targetNodeId, i);
+
+            if (otherEdgeId != edgeId
+                    && graph.edgeTargetNodeId(otherEdgeId) == sourceNodeId
+                    && graph.edgeLength(otherEdgeId) == graph.edgeLength(edgeId)
+                    && graph.edgeAttributesIndex(otherEdgeId) == graph.edgeAttributesIndex(edgeId)) {
+                return otherEdgeId;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Méthode outil qui ajoute à la liste donnée le rattachement décrit, si son coût est fini
+     * @param anchors la liste des rattachements
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param nodeId identité du noeud rattaché
+     * @param edgeId identité de l'arête
+     * @param fromPosition position du début de la portion
+     * @param toPosition position de la fin de la portion
+     */
+    private static void addIfFinite(List<EdgeAnchor> anchors, Graph graph, CostFunction costFunction,
+                                    int nodeId, int edgeId, double fromPosition, double toPosition) {
+        // Une portion de longueur nulle se réduit à un noeud, et ne coûte rien même si l'arête est impraticable
+        double length = toPosition - fromPosition;
+        double cost = length == 0 ? 0 : costFunction.costFactor(graph.edgeSourceNodeId(edgeId), edgeId) * length;
+
+        if (cost != Double.POSITIVE_INFINITY) {
+            anchors.add(new EdgeAnchor(nodeId, cost, edgeId, fromPosition, toPosition));
+        }
+    }
+
+    /**
+     * Méthode outil qui retourne le noeud auquel se trouve la position donnée, si elle est à une extrémité
+     * de son arête
+     * @param graph le graphe
+     * @param edgePosition la position
+     * @return l'identité du noeud, NO_NODE si la position se trouve strictement à l'intérieur de son arête
+     */
+    private static int nodeAt(Graph graph, EdgePosition edgePosition) {
+        double position = clampedPosition(graph, edgePosition);
+
+        if (position == 0) return graph.edgeSourceNodeId(edgePosition.edgeId());
+        if (position == graph.edgeLength(edgePosition.edgeId())) return graph.edgeTargetNodeId(edgePosition.edgeId());
+        return NO_NODE;
+    }
+
+    /**
+     * Méthode outil qui retourne la position donnée, ramenée entre 0 et la longueur de son arête
+     * @param graph le graphe
+     * @param edgePosition la position
+     * @return la position ramenée sur l'arête
+     */
+    private static double clampedPosition(Graph graph, EdgePosition edgePosition) {
+        return Math2.clamp(0, edgePosition.position(), graph.edgeLength(edgePosition.edgeId()));
+    }
+}
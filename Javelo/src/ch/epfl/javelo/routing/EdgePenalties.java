@@ -0,0 +1,95 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Table réutilisable des facteurs de pénalité des arêtes d'un graphe, utilisée par les recherches dont le coût
+ * de certaines arêtes est multiplié par une pénalité.
+ * Comme dans SearchWorkspace, chaque facteur est estampillé du numéro de génération de la table qui l'a
+ * écrit, de sorte que la réinitialisation ne coûte rien et que la lecture du facteur d'une arête lors d'une
+ * recherche se résume à la lecture de deux tableaux de types primitifs.
+ * Une table n'est pas partagée entre plusieurs fils d'exécution.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+final class EdgePenalties {
+
+    /**
+     * Génération à laquelle aucun facteur n'a encore été écrit
+     */
+    private static final int NO_GENERATION = 0;
+
+    /**
+     * Facteur d'une arête non pénalisée
+     */
+    private static final float NO_PENALTY = 1;
+
+    /**
+     * Génération ayant écrit le facteur de chaque arête
+     */
+    private final int[] generations;
+
+    /**
+     * Facteur de pénalité de chaque arête pénalisée
+     */
+    private final float[] factors;
+
+    /**
+     * Génération courante de la table, toujours strictement positive une fois la table réinitialisée
+     */
+    private int generation;
+
+    /**
+     * Constructeur d'une table pour un graphe comportant le nombre d'arêtes donné
+     * @param edgeCount nombre d'arêtes du graphe
+     */
+    EdgePenalties(int edgeCount) {
+        Preconditions.checkArgument(edgeCount >= 0);
+
+        this.generations = new int[edgeCount];
+        this.factors = new float[edgeCount];
+        this.generation = NO_GENERATION;
+    }
+
+    /**
+     * Prépare la table pour une nouvelle suite de recherches, aucune arête n'étant plus pénalisée
+     */
+    void reset() {
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(generations, NO_GENERATION);
+            generation = NO_GENERATION;
+        }
+        generation += 1;
+    }
+
+    /**
+     * Retourne le facteur de pénalité de l'arête donnée
+     * @param edgeId identité de l'arête
+     * @return le facteur, 1 si l'arête n'est pas pénalisée
+     */
+    float factor(int edgeId) {
+        return generations[edgeId] == generation ? factors[edgeId] : NO_PENALTY;
+    }
+
+    /**
+     * Modifie le facteur de pénalité de l'arête donnée
+     * @param edgeId identité de l'arête
+     * @param factor le nouveau facteur
+     */
+    void set(int edgeId, float factor) {
+        generations[edgeId] = generation;
+        factors[edgeId] = factor;
+    }
+
+    /**
+     * Multiplie le facteur de pénalité de l'arête donnée par le facteur donné
+     * @param edgeId identité de l'arête
+     * @param factor le facteur multiplicateur
+     */
+    void multiply(int edgeId, float factor) {
+        set(edgeId, factor(edgeId) * factor);
+    }
+}
@@ -0,0 +1,25 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+/**
+ * Enregistrement qui représente une position le long d'une arête du graphe, qui permet de faire
+ * commencer ou finir un itinéraire au milieu d'une arête
+ *
+ * @param edgeId identité de l'arête
+ * @param position position le long de l'arête, en mètres depuis son noeud de départ
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public record EdgePosition(int edgeId, double position) {
+
+    /**
+     * Constructeur compact qui vérifie que l'identité de l'arête et la position ne sont pas négatives
+     * @param edgeId identité de l'arête
+     * @param position position le long de l'arête
+     */
+    public EdgePosition {
+        Preconditions.checkArgument(edgeId >= 0 && position >= 0);
+    }
+}
@@ -0,0 +1,23 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Interface qui représente une heuristique de recherche A*, c'est-à-dire une borne inférieure
+ * du coût d'un itinéraire entre deux noeuds
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public interface HeuristicFunction {
+
+    /**
+     * Retourne une borne inférieure du coût du meilleur itinéraire allant du noeud d'identité
+     * fromNodeId au noeud d'identité toNodeId. Pour que les recherches restent optimales, la borne
+     * doit être cohérente : elle ne doit jamais dépasser le coût d'une arête allant de fromNodeId
+     * à un voisin additionné de la borne depuis ce voisin.
+     *
+     * @param fromNodeId identité du noeud de départ
+     * @param toNodeId identité du noeud d'arrivée
+     * @return la borne inférieure du coût
+     */
+    double lowerBound(int fromNodeId, int toNodeId);
+}
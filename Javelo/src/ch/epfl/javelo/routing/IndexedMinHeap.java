@@ -0,0 +1,193 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Tas binaire minimum indexé, dont les éléments sont des identités entières (de noeuds)
+ * associées à une priorité de type float. Permet de diminuer la priorité d'un élément
+ * déjà présent sans créer de doublon, et ne crée aucun objet lors de son utilisation.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+final class IndexedMinHeap {
+
+    /**
+     * Position d'un élément absent du tas
+     */
+    private static final int ABSENT = -1;
+
+    /**
+     * Identités des éléments, rangées dans l'ordre du tas
+     */
+    private final int[] elements;
+
+    /**
+     * Priorités des éléments, rangées dans le même ordre que elements
+     */
+    private final float[] keys;
+
+    /**
+     * Position de chaque identité dans le tas, ABSENT si elle n'y est pas
+     */
+    private final int[] positions;
+
+    /**
+     * Nombre d'éléments actuellement dans le tas
+     */
+    private int size;
+
+    /**
+     * Constructeur d'un tas vide pouvant contenir les identités comprises entre 0 (inclus)
+     * et capacity (exclus)
+     * @param capacity nombre d'identités possibles
+     */
+    IndexedMinHeap(int capacity) {
+        Preconditions.checkArgument(capacity >= 0);
+
+        this.elements = new int[capacity];
+        this.keys = new float[capacity];
+        this.positions = new int[capacity];
+
+        Arrays.fill(positions, ABSENT);
+    }
+
+    /**
+     * Vérifie si le tas est vide
+     * @return true si le tas ne contient aucun élément
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Retourne le nombre d'éléments du tas
+     * @return le nombre d'éléments
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Vérifie si l'identité donnée se trouve dans le tas
+     * @param id l'identité
+     * @return true si elle s'y trouve
+     */
+    boolean contains(int id) {
+        return positions[id] != ABSENT;
+    }
+
+    /**
+     * Retourne la plus petite priorité du tas, qui ne doit pas être vide
+     * @return la plus petite priorité
+     */
+    float minKey() {
+        assert size > 0;
+
+        return keys[0];
+    }
+
+    /**
+     * Ajoute l'identité donnée avec la priorité donnée, ou diminue sa priorité si elle
+     * se trouve déjà dans le tas avec une priorité plus grande
+     * @param id l'identité
+     * @param key la priorité
+     */
+    void insertOrDecrease(int id, float key) {
+        int position = positions[id];
+
+        if (position == ABSENT) {
+            position = size++;
+        } else if (key >= keys[position]) {
+            return;
+        }
+
+        siftUp(position, id, key);
+    }
+
+    /**
+     * Retire du tas l'élément de plus petite priorité, qui ne doit pas être vide
+     * @return l'identité de cet élément
+     */
+    int removeMin() {
+        assert size > 0;
+
+        int min = elements[0];
+        positions[min] = ABSENT;
+
+        size -= 1;
+        if (size > 0) {
+            siftDown(0, elements[size], keys[size]);
+        }
+
+        return min;
+    }
+
+    /**
+     * Vide le tas, en un temps proportionnel au nombre d'éléments qu'il contient
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[elements[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    /**
+     * Méthode outil qui place l'élément donné à la position donnée puis le fait
+     * remonter jusqu'à ce que l'ordre du tas soit rétabli
+     * @param position position de départ
+     * @param id identité de l'élément
+     * @param key priorité de l'élément
+     */
+    private void siftUp(int position, int id, float key) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+
+            if (keys[parent] <= key) break;
+
+            place(position, elements[parent], keys[parent]);
+            position = parent;
+        }
+
+        place(position, id, key);
+    }
+
+    /**
+     * Méthode outil qui place l'élément donné à la position donnée puis le fait
+     * descendre jusqu'à ce que l'ordre du tas soit rétabli
+     * @param position position de départ
+     * @param id identité de l'élément
+     * @param key priorité de l'élément
+     */
+    private void siftDown(int position, int id, float key) {
+        int half = size >>> 1;
+
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+
+            if (right < size && keys[right] < keys[child]) child = right;
+            if (key <= keys[child]) break;
+
+            place(position, elements[child], keys[child]);
+            position = child;
+        }
+
+        place(position, id, key);
+    }
+
+    /**
+     * Méthode outil qui range l'élément donné à la position donnée du tas
+     * @param position la position
+     * @param id identité de l'élément
+     * @param key priorité de l'élément
+     */
+    private void place(int position, int id, float key) {
+        elements[position] = id;
+        keys[position] = key;
+        positions[id] = position;
+    }
+}
@@ -0,0 +1,104 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.BitSet;
+
+/**
+ * Classe qui représente la partie du graphe atteignable depuis un noeud de départ sans dépasser un budget
+ * de coût ou de distance : les noeuds atteints avec la valeur (coût ou distance) de leur meilleur itinéraire,
+ * les arêtes parcourues avec la longueur parcourue de chacune, inférieure à la longueur de l'arête si elle
+ * est coupée par la limite du budget, et les secteurs du graphe contenant une partie atteinte.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class Isochrone {
+
+    /**
+     * Identités des noeuds atteints, par valeur croissante
+     */
+    private final int[] nodeIds;
+
+    /**
+     * Valeur du meilleur itinéraire menant à chacun des noeuds atteints
+     */
+    private final double[] nodeValues;
+
+    /**
+     * Identités des arêtes parcourues, entièrement ou en partie
+     */
+    private final int[] edgeIds;
+
+    /**
+     * Longueur parcourue de chacune des arêtes parcourues, depuis leur noeud de départ
+     */
+    private final double[] reachedLengths;
+
+    /**
+     * Identités des secteurs contenant un noeud atteint ou l'extrémité d'une arête coupée
+     */
+    private final BitSet sectorIds;
+
+    /**
+     * Constructeur de la zone atteignable décrite par les tableaux donnés, qui ne sont pas copiés
+     * @param nodeIds identités des noeuds atteints, par valeur croissante
+     * @param nodeValues valeur du meilleur itinéraire menant à chacun des noeuds atteints
+     * @param edgeIds identités des arêtes parcourues
+     * @param reachedLengths longueur parcourue de chacune des arêtes parcourues
+     * @param sectorIds identités des secteurs contenant une partie atteinte
+     * @throws IllegalArgumentException si les tableaux des noeuds ou des arêtes n'ont pas la même taille
+     */
+    Isochrone(int[] nodeIds, double[] nodeValues, int[] edgeIds, double[] reachedLengths, BitSet sectorIds) {
+        Preconditions.checkArgument(nodeIds.length == nodeValues.length
+                && edgeIds.length == reachedLengths.length);
+
+        this.nodeIds = nodeIds;
+        this.nodeValues = nodeValues;
+        this.edgeIds = edgeIds;
+        this.reachedLengths = reachedLengths;
+        this.sectorIds = sectorIds;
+    }
+
+    /**
+     * Retourne les identités des noeuds atteints
+     * @return les identités des noeuds, par valeur croissante, le noeud de départ en premier
+     */
+    public int[] nodeIds() {
+        return nodeIds.clone();
+    }
+
+    /**
+     * Retourne la valeur du meilleur itinéraire menant à chacun des noeuds atteints
+     * @return les valeurs, dans l'ordre de nodeIds
+     */
+    public double[] nodeValues() {
+        return nodeValues.clone();
+    }
+
+    /**
+     * Retourne les identités des arêtes parcourues, entièrement ou en partie
+     * @return les identités des arêtes
+     */
+    public int[] edgeIds() {
+        return edgeIds.clone();
+    }
+
+    /**
+     * Retourne la longueur parcourue de chacune des arêtes parcourues, depuis leur noeud de départ ; elle est
+     * égale à la longueur de l'arête si l'arête est entièrement parcourue
+     * @return les longueurs en mètres, dans l'ordre de edgeIds
+     */
+    public double[] reachedLengths() {
+        return reachedLengths.clone();
+    }
+
+    /**
+     * Retourne les identités des secteurs du graphe contenant un noeud atteint ou l'extrémité atteinte
+     * d'une arête coupée, qui forment une grille de la zone atteignable à la résolution des secteurs
+     * @return l'ensemble des identités des secteurs
+     */
+    public BitSet sectorIds() {
+        return (BitSet) sectorIds.clone();
+    }
+}
@@ -0,0 +1,163 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.GraphSectors;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * Classe qui détermine la partie du graphe atteignable depuis un noeud sans dépasser un budget de coût ou
+ * de distance, au moyen d'une unique recherche de Dijkstra bornée par le budget.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class IsochroneComputer {
+
+    /**
+     * Graphe Javelo
+     */
+    private final Graph graph;
+
+    /**
+     * Fonction qui permet de calculer le facteur multiplicateur relatif à la praticabilité à vélo d'une arête
+     */
+    private final CostFunction costFunction;
+
+    /**
+     * Espaces de travail des recherches, un par fil d'exécution, réutilisés d'une recherche à l'autre
+     */
+    private final ThreadLocal<SearchWorkspace> workspaces;
+
+    /**
+     * Constructeur qui affecte le graphe et la fonction de coût aux attributs
+     *
+     * @param graph Graphe Javelo
+     * @param costFunction Fonction de Cout
+     */
+    public IsochroneComputer(Graph graph, CostFunction costFunction) {
+        this.graph = Objects.requireNonNull(graph);
+        this.costFunction = Objects.requireNonNull(costFunction);
+        this.workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+    }
+
+    /**
+     * Détermine la partie du graphe atteignable depuis le noeud donné sans que la valeur (coût ou distance)
+     * de l'itinéraire n'excède le budget donné ; une arête partant d'un noeud atteint dont la valeur
+     * dépasserait le budget est coupée à la limite du budget, en proportion de sa longueur.
+     * Les arêtes impraticables (de facteur de coût infini) ne sont jamais parcourues
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param budget valeur maximale des itinéraires, en unités de coût ou en mètres
+     * @param budgetType grandeur limitée par le budget
+     * @return la partie du graphe atteignable
+     * @throws IllegalArgumentException si le budget est négatif
+     * @throws java.util.concurrent.CancellationException si le fil d'exécution est interrompu pendant
+     * la recherche
+     */
+    public Isochrone isochroneFrom(int startNodeId, double budget, Budget budgetType) {
+        Preconditions.checkArgument(budget >= 0);
+
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+
+        workspace.setDistance(startNodeId, 0);
+
+        IndexedMinHeap enExploration = workspace.heap();
+        enExploration.insertOrDecrease(startNodeId, 0);
+
+        int[] nodeIds = new int[16];
+        double[] nodeValues = new double[16];
+        int nodeCount = 0;
+        int[] edgeIds = new int[16];
+        double[] reachedLengths = new double[16];
+        int edgeCount = 0;
+        BitSet sectorIds = new BitSet(GraphSectors.SECTOR_COUNT);
+
+        while (!enExploration.isEmpty()) {
+            int nodeId = enExploration.removeMin();
+            double nodeValue = workspace.distance(nodeId);
+            workspace.settle(nodeId);
+
+            if (nodeCount == nodeIds.length) {
+                nodeIds = Arrays.copyOf(nodeIds, 2 * nodeCount);
+                nodeValues = Arrays.copyOf(nodeValues, 2 * nodeCount);
+            }
+            nodeIds[nodeCount] = nodeId;
+            nodeValues[nodeCount] = nodeValue;
+            nodeCount += 1;
+
+            PointCh nodePoint = graph.nodePoint(nodeId);
+            sectorIds.set(graph.sectorIdAt(nodePoint));
+
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int nodeOutId = graph.edgeTargetNodeId(edgeId);
+                double edgeLength = graph.edgeLength(edgeId);
+                double costFactor = costFunction.costFactor(nodeId, edgeId);
+
+                if (costFactor == Double.POSITIVE_INFINITY) continue;
+
+                double edgeValue = budgetType == Budget.COST ? costFactor * edgeLength : edgeLength;
+                double value = nodeValue + edgeValue;
+                double reachedLength = value <= budget
+                        ? edgeLength
+                        : edgeLength * (budget - nodeValue) / edgeValue;
+
+                if (edgeCount == edgeIds.length) {
+                    edgeIds = Arrays.copyOf(edgeIds, 2 * edgeCount);
+                    reachedLengths = Arrays.copyOf(reachedLengths, 2 * edgeCount);
+                }
+                edgeIds[edgeCount] = edgeId;
+                reachedLengths[edgeCount] = reachedLength;
+                edgeCount += 1;
+
+                if (value > budget) {
+                    sectorIds.set(graph.sectorIdAt(pointAt(nodePoint, graph.nodePoint(nodeOutId),
+                            reachedLength / edgeLength)));
+                } else if (!workspace.isSettled(nodeOutId) && value < workspace.distance(nodeOutId)) {
+                    workspace.setDistance(nodeOutId, value);
+                    enExploration.insertOrDecrease(nodeOutId, (float) value);
+                }
+            }
+        }
+
+        return new Isochrone(Arrays.copyOf(nodeIds, nodeCount), Arrays.copyOf(nodeValues, nodeCount),
+                Arrays.copyOf(edgeIds, edgeCount), Arrays.copyOf(reachedLengths, edgeCount), sectorIds);
+    }
+
+    /**
+     * Méthode outil qui renvoie le point situé à la fraction donnée du segment reliant les deux points donnés
+     * @param fromPoint point de départ du segment
+     * @param toPoint point d'arrivée du segment
+     * @param fraction fraction du segment, entre 0 et 1
+     * @return le point en question
+     */
+    private static PointCh pointAt(PointCh fromPoint, PointCh toPoint, double fraction) {
+        return new PointCh(Math2.interpolate(fromPoint.e(), toPoint.e(), fraction),
+                Math2.interpolate(fromPoint.n(), toPoint.n(), fraction));
+    }
+
+    /**
+     * Grandeur limitée par le budget d'une zone atteignable
+     */
+    public enum Budget {
+
+        /**
+         * Coût de l'itinéraire selon la fonction de coût, c.-à-d. la somme des longueurs de ses arêtes
+         * multipliées par leur facteur de coût
+         */
+        COST,
+
+        /**
+         * Longueur de l'itinéraire en mètres, les arêtes praticables étant toutes équivalentes
+         */
+        DISTANCE
+    }
+}
@@ -0,0 +1,219 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Outil de précalcul hors ligne des repères de l'heuristique ALT : choisit des noeuds repères
+ * répartis sur le pourtour du graphe, calcule les coûts depuis et vers chacun d'eux pour tous les
+ * noeuds, et les écrit dans le fichier landmarks.bin lu par LandmarkHeuristic.
+ * Usage : LandmarkBuilder [répertoire du graphe, par défaut Javelo/javelo-data] [nombre de repères]
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class LandmarkBuilder {
+
+    /**
+     * Nombre de repères par défaut
+     */
+    public static final int DEFAULT_LANDMARK_COUNT = 16;
+
+    /**
+     * Constructeur privé car la classe est non instanciable
+     */
+    private LandmarkBuilder() {}
+
+    /**
+     * Précalcule les repères du graphe du répertoire donné pour la fonction de coût CityBikeCF
+     * @param args répertoire du graphe et nombre de repères (optionnels)
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "Javelo/javelo-data");
+        int landmarkCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LANDMARK_COUNT;
+
+        Graph graph = Graph.loadFrom(basePath);
+
+        long start = System.nanoTime();
+        CostFunction costFunction = new PrecomputedCostFunction(graph, new CityBikeCF(graph));
+        int[] landmarks = build(graph, costFunction, landmarkCount, basePath);
+
+        System.out.printf("%d repères calculés en %.1f s : %s%n",
+                landmarks.length, (System.nanoTime() - start) / 1e9, Arrays.toString(landmarks));
+    }
+
+    /**
+     * Choisit au plus landmarkCount repères, calcule leurs coûts avec la fonction de coût donnée et
+     * les écrit dans le fichier landmarks.bin du répertoire donné
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param landmarkCount nombre de repères souhaité
+     * @param basePath répertoire dans lequel écrire le fichier
+     * @return les identités des noeuds repères
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static int[] build(Graph graph, CostFunction costFunction, int landmarkCount, Path basePath)
+            throws IOException {
+        Preconditions.checkArgument(landmarkCount > 0 && graph.nodeCount() > 0);
+
+        SearchWorkspace workspace = new SearchWorkspace(graph.nodeCount());
+        int[] landmarks = selectLandmarks(graph, costFunction, landmarkCount, workspace);
+
+        long fileSize = (long) graph.nodeCount() * landmarks.length * LandmarkHeuristic.DIRECTIONS * Float.BYTES;
+
+        try (FileChannel channel = FileChannel.open(basePath.resolve(LandmarkHeuristic.FILE_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            FloatBuffer costs = buffer.asFloatBuffer();
+
+            for (int landmark = 0; landmark < landmarks.length; landmark++) {
+                computeCosts(graph, costFunction, workspace, landmarks[landmark], true);
+                storeCosts(costs, workspace, landmark, landmarks.length, LandmarkHeuristic.OFFSET_FROM_LANDMARK);
+
+                computeCosts(graph, costFunction, workspace, landmarks[landmark], false);
+                storeCosts(costs, workspace, landmark, landmarks.length, LandmarkHeuristic.OFFSET_TO_LANDMARK);
+            }
+            buffer.force();
+        }
+
+        return landmarks;
+    }
+
+    /**
+     * Méthode outil qui choisit les repères : le plan est découpé en landmarkCount secteurs angulaires
+     * autour du barycentre des noeuds, et le repère de chaque secteur est le noeud le plus éloigné
+     * du barycentre parmi ceux atteignables depuis le noeud le plus central, de sorte que les repères
+     * se trouvent en bordure du graphe, derrière les destinations depuis toutes les directions
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param landmarkCount nombre de secteurs
+     * @param workspace espace de travail de la recherche
+     * @return les identités des repères, une par secteur non vide
+     */
+    private static int[] selectLandmarks(Graph graph, CostFunction costFunction, int landmarkCount,
+                                         SearchWorkspace workspace) {
+        double centerE = 0;
+        double centerN = 0;
+
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            PointCh point = graph.nodePoint(nodeId);
+            centerE += point.e() / graph.nodeCount();
+            centerN += point.n() / graph.nodeCount();
+        }
+
+        int centralNodeId = 0;
+        double smallestSquaredDistance = Double.POSITIVE_INFINITY;
+
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            PointCh point = graph.nodePoint(nodeId);
+            double squaredDistance = squaredDistance(point, centerE, centerN);
+
+            if (squaredDistance < smallestSquaredDistance) {
+                smallestSquaredDistance = squaredDistance;
+                centralNodeId = nodeId;
+            }
+        }
+
+        computeCosts(graph, costFunction, workspace, centralNodeId, true);
+
+        int[] farthestNode = new int[landmarkCount];
+        double[] farthestSquaredDistance = new double[landmarkCount];
+        Arrays.fill(farthestNode, -1);
+
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            if (workspace.distance(nodeId) == Double.POSITIVE_INFINITY) continue;
+
+            PointCh point = graph.nodePoint(nodeId);
+            double angle = Math.atan2(point.n() - centerN, point.e() - centerE);
+            int sector = Math.min(landmarkCount - 1, (int) ((angle + Math.PI) / (2 * Math.PI) * landmarkCount));
+            double squaredDistance = squaredDistance(point, centerE, centerN);
+
+            if (squaredDistance > farthestSquaredDistance[sector]) {
+                farthestSquaredDistance[sector] = squaredDistance;
+                farthestNode[sector] = nodeId;
+            }
+        }
+
+        return Arrays.stream(farthestNode).filter(nodeId -> nodeId != -1).toArray();
+    }
+
+    /**
+     * Méthode outil qui calcule, au moyen de l'algorithme de Dijkstra, le coût du meilleur itinéraire
+     * entre le noeud donné et tous les autres noeuds ; les coûts sont laissés dans l'espace de travail
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param workspace espace de travail de la recherche
+     * @param sourceNodeId identité du noeud source
+     * @param forward true pour les coûts depuis la source, false pour les coûts vers la source
+     */
+    private static void computeCosts(Graph graph, CostFunction costFunction, SearchWorkspace workspace,
+                                     int sourceNodeId, boolean forward) {
+        workspace.reset();
+        workspace.setDistance(sourceNodeId, 0);
+
+        IndexedMinHeap enExploration = workspace.heap();
+        enExploration.insertOrDecrease(sourceNodeId, 0);
+
+        while (!enExploration.isEmpty()) {
+            int nodeId = enExploration.removeMin();
+            double nodeDistance = workspace.distance(nodeId);
+            workspace.settle(nodeId);
+
+            int degree = forward ? graph.nodeOutDegree(nodeId) : graph.nodeInDegree(nodeId);
+
+            for (int i = 0; i < degree; i++) {
+                int edgeId = forward ? graph.nodeOutEdgeId(nodeId, i) : graph.nodeInEdgeId(nodeId, i);
+                int otherNodeId = forward ? graph.edgeTargetNodeId(edgeId) : graph.edgeSourceNodeId(edgeId);
+
+                if (workspace.isSettled(otherNodeId)) continue;
+
+                double distance = nodeDistance + costFunction
+                        .costFactor(forward ? nodeId : otherNodeId, edgeId) * graph.edgeLength(edgeId);
+
+                if (distance < workspace.distance(otherNodeId)) {
+                    workspace.setDistance(otherNodeId, distance);
+                    enExploration.insertOrDecrease(otherNodeId, (float) distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Méthode outil qui copie les coûts de l'espace de travail dans le tableau des coûts des repères
+     * @param costs tableau des coûts des repères
+     * @param workspace espace de travail contenant les coûts calculés
+     * @param landmark index du repère
+     * @param landmarkCount nombre de repères
+     * @param offset décalage de la direction
+     */
+    private static void storeCosts(FloatBuffer costs, SearchWorkspace workspace,
+                                   int landmark, int landmarkCount, int offset) {
+        for (int nodeId = 0; nodeId < workspace.capacity(); nodeId++) {
+            costs.put(LandmarkHeuristic.index(nodeId, landmark, offset, landmarkCount),
+                    (float) workspace.distance(nodeId));
+        }
+    }
+
+    /**
+     * Méthode outil qui calcule le carré de la distance entre un point et des coordonnées
+     * @param point le point
+     * @param e coordonnée est
+     * @param n coordonnée nord
+     * @return le carré de la distance
+     */
+    private static double squaredDistance(PointCh point, double e, double n) {
+        return Math2.squaredNorm(point.e() - e, point.n() - n);
+    }
+}
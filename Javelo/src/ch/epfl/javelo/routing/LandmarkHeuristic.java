@@ -0,0 +1,154 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Classe qui représente l'heuristique ALT (A*, landmarks, inégalité triangulaire).
+ * Pour un ensemble de noeuds repères L, le fichier landmarks.bin contient, pour chaque noeud v,
+ * les coûts d(L, v) et d(v, L) calculés au préalable par LandmarkBuilder avec une fonction de coût
+ * donnée ; l'inégalité triangulaire permet alors de borner inférieurement d(v, t) par
+ * max(d(L, t) - d(L, v), d(v, L) - d(t, L)).
+ * Les bornes ne sont valables que pour la fonction de coût utilisée lors du précalcul.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class LandmarkHeuristic implements HeuristicFunction {
+
+    /**
+     * Nom du fichier contenant les coûts des repères, placé à côté de nodes.bin
+     */
+    public static final String FILE_NAME = "landmarks.bin";
+
+    /**
+     * Nombre de coûts stockés pour chaque couple (noeud, repère) : depuis le repère, puis vers le repère
+     */
+    static final int DIRECTIONS = 2;
+
+    /**
+     * Décalage du coût allant du repère au noeud
+     */
+    static final int OFFSET_FROM_LANDMARK = 0;
+
+    /**
+     * Décalage du coût allant du noeud au repère
+     */
+    static final int OFFSET_TO_LANDMARK = OFFSET_FROM_LANDMARK + 1;
+
+    /**
+     * Erreur relative maximale d'un coût stocké sous forme de float, retranchée des bornes
+     * afin qu'elles restent inférieures aux coûts réels
+     */
+    private static final double FLOAT_TOLERANCE = Math.ulp(1f);
+
+    /**
+     * Coûts des repères, rangés par noeud, puis par repère, puis par direction
+     */
+    private final FloatBuffer costs;
+
+    /**
+     * Nombre de repères
+     */
+    private final int landmarkCount;
+
+    /**
+     * Constructeur de l'heuristique ALT
+     * @param costs coûts des repères, rangés par noeud, puis par repère, puis par direction
+     * @param nodeCount nombre de noeuds du graphe
+     */
+    public LandmarkHeuristic(FloatBuffer costs, int nodeCount) {
+        Preconditions.checkArgument(nodeCount > 0 && costs.capacity() % (nodeCount * DIRECTIONS) == 0);
+
+        this.costs = costs;
+        this.landmarkCount = costs.capacity() / (nodeCount * DIRECTIONS);
+    }
+
+    /**
+     * Charge l'heuristique ALT depuis le fichier landmarks.bin du répertoire donné, en le projetant en mémoire
+     * @param basePath chemin d'accès du répertoire
+     * @param graph le graphe pour lequel les repères ont été calculés
+     * @return l'heuristique
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static LandmarkHeuristic loadFrom(Path basePath, Graph graph) throws IOException {
+        FloatBuffer costs;
+        try (FileChannel channel = FileChannel.open(basePath.resolve(FILE_NAME))) {
+            costs = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asFloatBuffer();
+        }
+        return new LandmarkHeuristic(costs, graph.nodeCount());
+    }
+
+    /**
+     * Retourne le nombre de repères
+     * @return le nombre de repères
+     */
+    public int landmarkCount() {
+        return landmarkCount;
+    }
+
+    /**
+     * Retourne la meilleure borne inférieure donnée par les repères ; les repères qui n'atteignent
+     * pas l'un des deux noeuds (ou ne sont pas atteints par lui) sont ignorés
+     *
+     * @param fromNodeId identité du noeud de départ
+     * @param toNodeId identité du noeud d'arrivée
+     * @return la borne inférieure du coût
+     */
+    @Override
+    public double lowerBound(int fromNodeId, int toNodeId) {
+        double bound = 0;
+
+        for (int landmark = 0; landmark < landmarkCount; landmark++) {
+            bound = Math.max(bound, difference(
+                    cost(toNodeId, landmark, OFFSET_FROM_LANDMARK),
+                    cost(fromNodeId, landmark, OFFSET_FROM_LANDMARK)));
+            bound = Math.max(bound, difference(
+                    cost(fromNodeId, landmark, OFFSET_TO_LANDMARK),
+                    cost(toNodeId, landmark, OFFSET_TO_LANDMARK)));
+        }
+
+        return bound;
+    }
+
+    /**
+     * Méthode outil qui calcule l'index d'un coût dans le tableau des coûts
+     * @param nodeId identité du noeud
+     * @param landmark index du repère
+     * @param offset décalage de la direction
+     * @param landmarkCount nombre de repères
+     * @return l'index du coût
+     */
+    static int index(int nodeId, int landmark, int offset, int landmarkCount) {
+        return (nodeId * landmarkCount + landmark) * DIRECTIONS + offset;
+    }
+
+    /**
+     * Méthode outil qui retourne le coût stocké pour le noeud, le repère et la direction donnés
+     * @param nodeId identité du noeud
+     * @param landmark index du repère
+     * @param offset décalage de la direction
+     * @return le coût, infini si le repère et le noeud ne sont pas reliés dans cette direction
+     */
+    private float cost(int nodeId, int landmark, int offset) {
+        return costs.get(index(nodeId, landmark, offset, landmarkCount));
+    }
+
+    /**
+     * Méthode outil qui calcule la différence a - b diminuée de l'erreur d'arrondi des floats,
+     * ou 0 si l'un des coûts est infini
+     * @param a premier coût
+     * @param b second coût
+     * @return la différence
+     */
+    private static double difference(float a, float b) {
+        if (Float.isInfinite(a) || Float.isInfinite(b)) return 0;
+
+        return (double) a - b - FLOAT_TOLERANCE * ((double) a + b);
+    }
+}
@@ -0,0 +1,191 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Classe qui représente un cache borné des étapes d'itinéraires, c.-à-d. des meilleurs itinéraires
+ * entre deux noeuds, ou deux positions au milieu d'arêtes, pour une fonction de coût donnée.
+ * Lorsque le cache est plein, l'étape utilisée il y a le plus longtemps en est retirée ; sa capacité
+ * peut être augmentée afin qu'un itinéraire dont toutes les étapes sont demandées dans le même ordre
+ * à chaque calcul ne les en retire pas les unes après les autres. L'absence
+ * d'itinéraire entre deux extrémités est aussi mise en cache. Les instances peuvent être partagées
+ * entre plusieurs fils d'exécution ; les itinéraires absents du cache sont calculés hors du verrou,
+ * de sorte que plusieurs étapes peuvent être calculées simultanément.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class LegCache {
+
+    /**
+     * Load Factor de la table associative du cache
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Nombre maximal d'étapes du cache
+     */
+    private int capacity;
+
+    /**
+     * Étapes du cache, par ordre d'utilisation ; une étape sans itinéraire est représentée
+     * par un Optional vide, afin de la distinguer d'une étape absente
+     */
+    private final Map<Key, Optional<Route>> legs;
+
+    /**
+     * Nombre de recherches ayant trouvé l'étape dans le cache
+     */
+    private long hitCount;
+
+    /**
+     * Nombre de recherches n'ayant pas trouvé l'étape dans le cache
+     */
+    private long missCount;
+
+    /**
+     * Nombre d'étapes retirées du cache faute de place
+     */
+    private long evictionCount;
+
+    /**
+     * Constructeur d'un cache vide
+     * @param capacity nombre maximal d'étapes du cache
+     * @throws IllegalArgumentException si la capacité n'est pas strictement positive
+     */
+    public LegCache(int capacity) {
+        Preconditions.checkArgument(capacity > 0);
+
+        this.capacity = capacity;
+        this.legs = new LinkedHashMap<>(capacity, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Optional<Route>> eldest) {
+                boolean evict = size() > LegCache.this.capacity;
+                if (evict) evictionCount += 1;
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Retourne le meilleur itinéraire entre les deux noeuds donnés pour la fonction de coût du
+     * calculateur donné, en l'extrayant du cache ou, s'il n'y est pas, en le calculant au moyen
+     * du calculateur puis en l'y ajoutant
+     * @param computer calculateur d'itinéraires
+     * @param fromNodeId identité du noeud de départ
+     * @param toNodeId identité du noeud d'arrivée
+     * @return l'itinéraire, null s'il n'existe pas
+     */
+    public Route bestRouteBetween(RouteComputer computer, int fromNodeId, int toNodeId) {
+        return cachedRoute(new Key(fromNodeId, toNodeId, computer.costFunction()),
+                () -> computer.bestRouteBetween(fromNodeId, toNodeId));
+    }
+
+    /**
+     * Retourne le meilleur itinéraire entre les deux positions au milieu d'arêtes données pour la fonction
+     * de coût du calculateur donné, en l'extrayant du cache ou, s'il n'y est pas, en le calculant au moyen
+     * du calculateur puis en l'y ajoutant
+     * @param computer calculateur d'itinéraires
+     * @param from position de départ
+     * @param to position d'arrivée
+     * @return l'itinéraire, null s'il n'existe pas
+     */
+    public Route bestRouteBetween(RouteComputer computer, EdgePosition from, EdgePosition to) {
+        return cachedRoute(new Key(from, to, computer.costFunction()),
+                () -> computer.bestRouteBetween(from, to));
+    }
+
+    /**
+     * Augmente si nécessaire la capacité du cache jusqu'à la capacité donnée ; la capacité n'est jamais diminuée
+     * @param minCapacity capacité minimale du cache
+     */
+    public synchronized void ensureCapacity(int minCapacity) {
+        capacity = Math.max(capacity, minCapacity);
+    }
+
+    /**
+     * Retourne le nombre maximal d'étapes du cache
+     * @return la capacité
+     */
+    public synchronized int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Retourne le nombre d'étapes du cache
+     * @return le nombre d'étapes
+     */
+    public synchronized int size() {
+        return legs.size();
+    }
+
+    /**
+     * Retourne le nombre de recherches ayant trouvé l'étape dans le cache
+     * @return le nombre de succès
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Retourne le nombre de recherches n'ayant pas trouvé l'étape dans le cache
+     * @return le nombre d'échecs
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Retourne le nombre d'étapes retirées du cache faute de place
+     * @return le nombre d'évictions
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Retourne la proportion des recherches ayant trouvé l'étape dans le cache
+     * @return le taux de succès, NaN si aucune recherche n'a été faite
+     */
+    public synchronized double hitRate() {
+        return (double) hitCount / (hitCount + missCount);
+    }
+
+    /**
+     * Méthode outil qui retourne l'étape de clé donnée, en l'extrayant du cache ou, si elle n'y est pas,
+     * en la calculant hors du verrou puis en l'y ajoutant
+     * @param key clé de l'étape
+     * @param computation calcul de l'étape
+     * @return l'itinéraire, null s'il n'existe pas
+     */
+    private Route cachedRoute(Key key, Supplier<Route> computation) {
+        synchronized (this) {
+            Optional<Route> cached = legs.get(key);
+            if (cached != null) {
+                hitCount += 1;
+                return cached.orElse(null);
+            }
+            missCount += 1;
+        }
+
+        Route route = computation.get();
+
+        synchronized (this) {
+            legs.put(key, Optional.ofNullable(route));
+        }
+        return route;
+    }
+
+    /**
+     * Enregistrement qui représente la clé d'une étape du cache
+     * @param from identité du noeud ou position (EdgePosition) de départ
+     * @param to identité du noeud ou position (EdgePosition) d'arrivée
+     * @param costProfile fonction de coût avec laquelle l'étape a été calculée
+     */
+    private record Key(Object from, Object to, CostFunction costProfile) {}
+}
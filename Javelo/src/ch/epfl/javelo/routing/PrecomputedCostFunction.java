@@ -0,0 +1,110 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Classe qui représente une fonction de coût dont les facteurs sont précalculés, par blocs d'arêtes
+ * consécutives, à partir d'une autre fonction de coût, de sorte que l'évaluation du facteur d'une
+ * arête lors d'une recherche se résume à la lecture d'un tableau.
+ * Un bloc est calculé lors du premier accès à l'une de ses arêtes, ou d'un coup au moyen de
+ * precomputeAll ; les facteurs sont stockés sous forme de float.
+ * La fonction de coût décorée ne doit dépendre que de l'arête, et non du noeud dont elle part,
+ * ce qui est le cas de CityBikeCF.
+ * Les instances peuvent être partagées entre plusieurs fils d'exécution.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class PrecomputedCostFunction implements CostFunction {
+
+    /**
+     * Logarithme en base 2 du nombre d'arêtes d'un bloc
+     */
+    private static final int CHUNK_SHIFT = 12;
+
+    /**
+     * Nombre d'arêtes d'un bloc
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /**
+     * Masque donnant l'index d'une arête dans son bloc
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Identité de noeud transmise à la fonction de coût décorée, qui n'en dépend pas ; déterminer le noeud
+     * de départ de chaque arête obligerait à construire les arêtes entrantes du graphe
+     */
+    private static final int ANY_NODE_ID = 0;
+
+    /**
+     * Graphe Javelo
+     */
+    private final Graph graph;
+
+    /**
+     * Fonction de coût décorée
+     */
+    private final CostFunction costFunction;
+
+    /**
+     * Facteurs de coût, par bloc d'arêtes ; null pour un bloc pas encore calculé
+     */
+    private final AtomicReferenceArray<float[]> chunks;
+
+    /**
+     * Constructeur de la fonction de coût précalculée ; aucun facteur n'est calculé à la construction
+     * @param graph Graphe Javelo
+     * @param costFunction fonction de coût décorée, indépendante du noeud de départ des arêtes
+     */
+    public PrecomputedCostFunction(Graph graph, CostFunction costFunction) {
+        this.graph = graph;
+        this.costFunction = costFunction;
+        this.chunks = new AtomicReferenceArray<>((graph.edgeCount() + CHUNK_MASK) >>> CHUNK_SHIFT);
+    }
+
+    /**
+     * Calcule immédiatement les facteurs de toutes les arêtes
+     * @return la fonction de coût elle-même
+     */
+    public PrecomputedCostFunction precomputeAll() {
+        for (int chunk = 0; chunk < chunks.length(); chunk++) {
+            chunk(chunk);
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double costFactor(int nodeId, int edgeId) {
+        return chunk(edgeId >>> CHUNK_SHIFT)[edgeId & CHUNK_MASK];
+    }
+
+    /**
+     * Méthode outil qui retourne les facteurs du bloc donné, en les calculant s'ils ne l'ont pas encore été ;
+     * deux fils d'exécution peuvent calculer le même bloc simultanément, les deux résultats étant identiques
+     * @param chunk index du bloc
+     * @return les facteurs du bloc
+     */
+    private float[] chunk(int chunk) {
+        float[] factors = chunks.get(chunk);
+
+        if (factors == null) {
+            int firstEdgeId = chunk << CHUNK_SHIFT;
+            factors = new float[Math.min(CHUNK_SIZE, graph.edgeCount() - firstEdgeId)];
+
+            for (int i = 0; i < factors.length; i++) {
+                int edgeId = firstEdgeId + i;
+                factors[i] = (float) costFunction.costFactor(ANY_NODE_ID, edgeId);
+            }
+            chunks.set(chunk, factors);
+        }
+
+        return factors;
+    }
+}
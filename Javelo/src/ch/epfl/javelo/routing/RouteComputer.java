@@ -5,6 +5,13 @@ import ch.epfl.javelo.data.Graph;
 import ch.epfl.javelo.projection.PointCh;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Classe qui détermine l'itinéraire optimal entre deux noeuds Javelo
@@ -14,38 +21,998 @@ import java.util.*;
  */
 public final class RouteComputer {
 
+    /**
+     * Facteur multipliant le coût des arêtes d'un itinéraire trouvé lors de la recherche de variantes
+     */
+    private static final float PENALTY_FACTOR = 1.4f;
+
+    /**
+     * Proportion maximale de la longueur d'une variante parcourant des arêtes déjà proposées
+     */
+    private static final double MAX_OVERLAP_RATIO = 0.7;
+
+    /**
+     * Coût supplémentaire maximal d'une variante, relativement au meilleur itinéraire
+     */
+    private static final double MAX_EXTRA_COST_RATIO = 0.3;
+
+    /**
+     * Nombre maximal de noeuds visités par l'ensemble des recherches de variantes, en multiples du nombre de
+     * noeuds visités par la recherche du meilleur itinéraire
+     */
+    private static final int ALTERNATIVES_EFFORT_FACTOR = 4;
+
+    /**
+     * Nombre maximal de recherches de variantes par variante demandée
+     */
+    private static final int MAX_ALTERNATIVE_ATTEMPTS = 3;
+
+    /**
+     * Nombre de directions dans lesquelles sont cherchés les points de demi-tour d'une boucle
+     */
+    private static final int ROUND_TRIP_DIRECTION_COUNT = 12;
+
+    /**
+     * Écart, en nombre de directions, entre les deux points de demi-tour d'une boucle, soit environ 60°
+     */
+    private static final int ROUND_TRIP_TURN = 2;
+
+    /**
+     * Rapport moyen entre la longueur d'un itinéraire et la distance à vol d'oiseau qu'il parcourt
+     */
+    private static final double ROUND_TRIP_DETOUR_FACTOR = 1.25;
+
+    /**
+     * Écart relatif maximal entre la distance à vol d'oiseau d'un point de demi-tour et la distance souhaitée
+     */
+    private static final double ROUND_TRIP_RING_TOLERANCE = 0.2;
+
+    /**
+     * Coût maximal de la recherche des points de demi-tour, en multiples du coût du premier point candidat
+     * trouvé, ramené à la distance maximale des points de demi-tour
+     */
+    private static final double ROUND_TRIP_SEARCH_COST_FACTOR = 2;
+
+    /**
+     * Écart relatif maximal entre la longueur d'une boucle et la longueur souhaitée, au-delà duquel la distance
+     * des points de demi-tour est corrigée
+     */
+    private static final double ROUND_TRIP_LENGTH_TOLERANCE = 0.05;
+
+    /**
+     * Nombre maximal de corrections de la distance des points de demi-tour d'une boucle
+     */
+    private static final int ROUND_TRIP_REFINEMENT_COUNT = 1;
+
+    /**
+     * Facteur de pénalité des arêtes déjà parcourues par une boucle
+     */
+    private static final float ROUND_TRIP_REUSE_PENALTY = 4;
+
     /**
      * Graphe Javelo
      */
-    private final Graph graph;
+    private final Graph graph;
+
+    /**
+     * Fonction qui permet de calculer le facteur multiplicateur relatif à la praticabilité à vélo d'une arête
+     */
+    private final CostFunction costFunction;
+
+    /**
+     * Moteur de recherche utilisé pour calculer les itinéraires
+     */
+    private final Engine engine;
+
+    /**
+     * Heuristique guidant les recherches A* vers le noeud d'arrivée
+     */
+    private final HeuristicFunction heuristic;
+
+    /**
+     * Hiérarchie de contraction du moteur CONTRACTION_HIERARCHY, null pour les autres moteurs
+     */
+    private final ContractionHierarchy hierarchy;
+
+    /**
+     * Espaces de travail des recherches, un par fil d'exécution, réutilisés d'une recherche à l'autre
+     */
+    private final ThreadLocal<SearchWorkspace> workspaces;
+
+    /**
+     * Espaces de travail des recherches arrière du moteur bidirectionnel, un par fil d'exécution
+     */
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+
+    /**
+     * Nombre de noeuds visités par la dernière recherche du moteur PRIORITY_QUEUE, un par fil d'exécution
+     */
+    private final ThreadLocal<Integer> queueSettledCounts;
+
+    /**
+     * Tables des pénalités des recherches d'itinéraires alternatifs et de boucles, une par fil d'exécution
+     */
+    private final ThreadLocal<EdgePenalties> edgePenalties;
+
+    /**
+     * Constructeur qui affecte le graphe et la fonction decoût aux attributs,
+     * et utilise le moteur de recherche à tas indexé
+     *
+     * @param graph Graphe Javelo
+     * @param costFunction Fonction de Cout
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction) {
+        this(graph, costFunction, Engine.INDEXED_HEAP);
+    }
+
+    /**
+     * Constructeur qui affecte le graphe, la fonction de coût et le moteur de recherche aux attributs,
+     * et utilise l'heuristique de la distance à vol d'oiseau
+     *
+     * @param graph Graphe Javelo
+     * @param costFunction Fonction de Cout
+     * @param engine Moteur de recherche à utiliser
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, Engine engine) {
+        this(graph, costFunction, engine, new StraightLineHeuristic(graph));
+    }
+
+    /**
+     * Constructeur qui affecte le graphe, la fonction de coût, le moteur de recherche et l'heuristique
+     * aux attributs ; l'heuristique doit être une borne inférieure cohérente pour la fonction de coût
+     * donnée, et n'est pas utilisée par le moteur PRIORITY_QUEUE
+     *
+     * @param graph Graphe Javelo
+     * @param costFunction Fonction de Cout
+     * @param engine Moteur de recherche à utiliser
+     * @param heuristic Heuristique des recherches A*
+     * @throws IllegalArgumentException si le moteur est CONTRACTION_HIERARCHY, qui nécessite une hiérarchie
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, Engine engine, HeuristicFunction heuristic) {
+        this(graph, costFunction, engine, heuristic, null);
+        Preconditions.checkArgument(engine != Engine.CONTRACTION_HIERARCHY);
+    }
+
+    /**
+     * Constructeur qui utilise le moteur CONTRACTION_HIERARCHY avec la hiérarchie donnée, qui doit
+     * avoir été construite pour le graphe et la fonction de coût donnés
+     *
+     * @param graph Graphe Javelo
+     * @param costFunction Fonction de Cout
+     * @param hierarchy Hiérarchie de contraction du graphe pour la fonction de coût
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, ContractionHierarchy hierarchy) {
+        this(graph, costFunction, Engine.CONTRACTION_HIERARCHY, new StraightLineHeuristic(graph),
+                Objects.requireNonNull(hierarchy));
+    }
+
+    /**
+     * Constructeur privé auquel délèguent les constructeurs publics
+     *
+     * @param graph Graphe Javelo
+     * @param costFunction Fonction de Cout
+     * @param engine Moteur de recherche à utiliser
+     * @param heuristic Heuristique des recherches A*
+     * @param hierarchy Hiérarchie de contraction, null sauf pour le moteur CONTRACTION_HIERARCHY
+     */
+    private RouteComputer(Graph graph, CostFunction costFunction, Engine engine, HeuristicFunction heuristic,
+                          ContractionHierarchy hierarchy) {
+        this.graph = graph;
+        this.costFunction = costFunction;
+        this.engine = Objects.requireNonNull(engine);
+        this.heuristic = Objects.requireNonNull(heuristic);
+        this.hierarchy = hierarchy;
+        this.workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+        this.backwardWorkspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+        this.queueSettledCounts = ThreadLocal.withInitial(() -> 0);
+        this.edgePenalties = ThreadLocal.withInitial(() -> new EdgePenalties(graph.edgeCount()));
+    }
+
+    /**
+     * Retourne la fonction de coût du calculateur
+     *
+     * @return la fonction de coût
+     */
+    public CostFunction costFunction() {
+        return costFunction;
+    }
+
+    /**
+     * Détermine le meilleur itinéraire simple entre les deux noeuds Javelo donnés
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId   Identité du noeud d'arrivée
+     * @return l'itinéraire simple idéale entre les deux noeuds, null s'il n'existe pas
+     * @throws java.util.concurrent.CancellationException si le fil d'exécution est interrompu pendant
+     * la recherche (sauf avec le moteur PRIORITY_QUEUE)
+     */
+    public Route bestRouteBetween(int startNodeId, int endNodeId) {
+
+        int[] path = bestPathBetween(startNodeId, endNodeId);
+
+        return path == null ? null : new SingleRoute(RoutePaths.edges(graph, startNodeId, path));
+    }
+
+    /**
+     * Détermine le meilleur itinéraire simple entre les deux noeuds Javelo donnés, sous la forme compacte
+     * d'un CompactRoute, qui convient à la conservation d'un grand nombre d'itinéraires
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId   Identité du noeud d'arrivée
+     * @return l'itinéraire simple idéale entre les deux noeuds, null s'il n'existe pas
+     * @throws java.util.concurrent.CancellationException si le fil d'exécution est interrompu pendant
+     * la recherche (sauf avec le moteur PRIORITY_QUEUE)
+     */
+    public CompactRoute bestCompactRouteBetween(int startNodeId, int endNodeId) {
+
+        int[] path = bestPathBetween(startNodeId, endNodeId);
+
+        return path == null ? null : new CompactRoute(graph, startNodeId, path);
+    }
+
+    /**
+     * Détermine le meilleur itinéraire simple entre les deux positions données au milieu d'arêtes :
+     * chaque position est rattachée aux noeuds de son arête (et de l'arête de sens opposé) par une portion
+     * d'arête, et la première et la dernière arête de l'itinéraire sont de telles portions.
+     * Seul le moteur CONTRACTION_HIERARCHY a sa propre recherche, les autres moteurs utilisant tous une
+     * recherche A* à tas indexé partant de plusieurs noeuds à la fois
+     *
+     * @param start position de départ
+     * @param end position d'arrivée
+     * @return l'itinéraire simple idéal entre les deux positions, null s'il n'existe pas
+     * @throws IllegalArgumentException si les deux positions désignent le même point du graphe
+     * (voir sameLocation)
+     * @throws java.util.concurrent.CancellationException si le fil d'exécution est interrompu pendant
+     * la recherche
+     */
+    public Route bestRouteBetween(EdgePosition start, EdgePosition end) {
+
+        Preconditions.checkArgument(!sameLocation(start, end));
+
+        return engine == Engine.CONTRACTION_HIERARCHY
+                ? hierarchy.bestRouteBetween(start, end, costFunction)
+                : bestRouteBetweenPositions(start, end);
+    }
+
+    /**
+     * Vérifie si les deux positions données désignent le même point du graphe, auquel cas aucun itinéraire
+     * ne les relie : elles sont au même noeud, par exemple au début d'une arête et à la fin d'une autre,
+     * ou à la même position le long d'une arête ou de son arête de sens opposé
+     *
+     * @param first première position
+     * @param second seconde position
+     * @return true si les deux positions sont confondues
+     */
+    public boolean sameLocation(EdgePosition first, EdgePosition second) {
+        return EdgeAnchor.sameLocation(graph, first, second);
+    }
+
+    /**
+     * Détermine jusqu'à maxCount itinéraires suffisamment différents entre les deux noeuds Javelo donnés, au
+     * moyen de la méthode des pénalités : après chaque recherche, le coût des arêtes de l'itinéraire trouvé est
+     * multiplié par un facteur de pénalité, de sorte que la recherche suivante s'en écarte. Un itinéraire n'est
+     * proposé que si au plus MAX_OVERLAP_RATIO de sa longueur parcourt des arêtes déjà proposées et si son coût
+     * excède d'au plus MAX_EXTRA_COST_RATIO celui du meilleur itinéraire. Les recherches de variantes visitent
+     * au total au plus ALTERNATIVES_EFFORT_FACTOR fois le nombre de noeuds visités par la recherche du meilleur
+     * itinéraire. Toutes les recherches sont des recherches A* utilisant l'heuristique du calculateur, quel que
+     * soit son moteur
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId   Identité du noeud d'arrivée
+     * @param maxCount nombre maximal d'itinéraires, meilleur itinéraire compris
+     * @return les itinéraires, le meilleur en premier, vide s'il n'existe aucun itinéraire
+     * @throws IllegalArgumentException si les deux noeuds sont identiques ou si maxCount n'est pas
+     * strictement positif
+     * @throws java.util.concurrent.CancellationException si le fil d'exécution est interrompu pendant
+     * la recherche
+     */
+    public List<AlternativeRoute> alternativeRoutesBetween(int startNodeId, int endNodeId, int maxCount) {
+
+        Preconditions.checkArgument(startNodeId != endNodeId && maxCount > 0);
+
+        EdgePenalties penalties = edgePenalties.get();
+        penalties.reset();
+        int[] bestPath = penalizedPath(startNodeId, endNodeId, penalties, Integer.MAX_VALUE);
+        if (bestPath == null) return List.of();
+
+        double bestCost = pathCost(startNodeId, bestPath);
+        int remainingEffort = (int) Math.min(Integer.MAX_VALUE,
+                (long) ALTERNATIVES_EFFORT_FACTOR * workspaces.get().settledCount());
+
+        List<AlternativeRoute> routes = new ArrayList<>();
+        routes.add(new AlternativeRoute(new SingleRoute(RoutePaths.edges(graph, startNodeId, bestPath)),
+                bestCost, 0, 0));
+
+        BitSet proposedEdgeIds = new BitSet(graph.edgeCount());
+        for (int edgeId : bestPath) proposedEdgeIds.set(edgeId);
+
+        int[] path = bestPath;
+
+        for (int attempt = 0; attempt < MAX_ALTERNATIVE_ATTEMPTS * (maxCount - 1) && routes.size() < maxCount;
+             attempt++) {
+
+            for (int edgeId : path) {
+                penalties.multiply(edgeId, PENALTY_FACTOR);
+            }
+
+            path = penalizedPath(startNodeId, endNodeId, penalties, remainingEffort);
+            remainingEffort -= workspaces.get().settledCount();
+            if (path == null) break;
+
+            double cost = pathCost(startNodeId, path);
+            double length = 0;
+            double overlapLength = 0;
+            for (int edgeId : path) {
+                length += graph.edgeLength(edgeId);
+                if (proposedEdgeIds.get(edgeId)) overlapLength += graph.edgeLength(edgeId);
+            }
+
+            double overlapRatio = length == 0 ? 1 : overlapLength / length;
+            double extraCostRatio = cost / bestCost - 1;
+
+            if (overlapRatio <= MAX_OVERLAP_RATIO && extraCostRatio <= MAX_EXTRA_COST_RATIO) {
+                routes.add(new AlternativeRoute(new SingleRoute(RoutePaths.edges(graph, startNodeId, path)),
+                        cost, overlapRatio, extraCostRatio));
+                for (int edgeId : path) proposedEdgeIds.set(edgeId);
+            }
+        }
+
+        return routes;
+    }
+
+    /**
+     * Génère une boucle partant du noeud donné et y revenant, d'une longueur proche de la longueur donnée.
+     * Une unique recherche de Dijkstra bornée depuis le noeud de départ détermine, dans chacune des
+     * ROUND_TRIP_DIRECTION_COUNT directions, le point de demi-tour candidat le moins coûteux à atteindre parmi
+     * les noeuds situés à vol d'oiseau à environ un tiers de la longueur, divisé par le facteur de détour
+     * des routes. Pour chaque paire de points de demi-tour séparés d'environ 60°, le triangle composé de
+     * l'itinéraire du départ au premier point, du premier au second point, puis du second point au départ
+     * est évalué, les arêtes déjà parcourues (dans un sens ou dans l'autre) étant pénalisées lors du calcul
+     * des itinéraires suivants ; la boucle retenue est celle dont la longueur est la plus proche de la
+     * longueur donnée, les arêtes parcourues plusieurs fois comptant comme un écart. Si sa longueur s'écarte de
+     * plus de ROUND_TRIP_LENGTH_TOLERANCE de la longueur donnée, la distance des points de demi-tour est
+     * corrigée en proportion et la recherche recommencée, au plus ROUND_TRIP_REFINEMENT_COUNT fois
+     *
+     * @param startNodeId Identité du noeud de départ et d'arrivée
+     * @param targetLength longueur souhaitée de la boucle, en mètres
+     * @return la boucle, composée de trois itinéraires simples, null s'il n'en existe aucune
+     * @throws IllegalArgumentException si la longueur n'est pas strictement positive
+     * @throws java.util.concurrent.CancellationException si le fil d'exécution est interrompu pendant
+     * la recherche
+     */
+    public MultiRoute roundTripFrom(int startNodeId, double targetLength) {
+
+        Preconditions.checkArgument(targetLength > 0);
+
+        double turnaroundDistance = targetLength / (3 * ROUND_TRIP_DETOUR_FACTOR);
+        MultiRoute bestRoundTrip = null;
+
+        for (int refinement = 0; refinement <= ROUND_TRIP_REFINEMENT_COUNT; refinement++) {
+            MultiRoute roundTrip = roundTripThrough(startNodeId, targetLength, turnaroundDistance);
+            if (roundTrip == null) break;
+
+            if (bestRoundTrip == null || Math.abs(roundTrip.length() - targetLength)
+                    < Math.abs(bestRoundTrip.length() - targetLength)) {
+                bestRoundTrip = roundTrip;
+            }
+            if (Math.abs(roundTrip.length() - targetLength) <= ROUND_TRIP_LENGTH_TOLERANCE * targetLength) break;
+
+            turnaroundDistance *= targetLength / roundTrip.length();
+        }
+
+        return bestRoundTrip;
+    }
+
+    /**
+     * Méthode outil qui génère la meilleure boucle passant par deux points de demi-tour situés à la distance à
+     * vol d'oiseau donnée du départ
+     *
+     * @param startNodeId Identité du noeud de départ et d'arrivée
+     * @param targetLength longueur souhaitée de la boucle, en mètres
+     * @param turnaroundDistance distance à vol d'oiseau souhaitée des points de demi-tour, en mètres
+     * @return la boucle, composée de trois itinéraires simples, null s'il n'en existe aucune
+     */
+    private MultiRoute roundTripThrough(int startNodeId, double targetLength, double turnaroundDistance) {
+
+        int[][] outwardPaths = turnaroundPaths(startNodeId, turnaroundDistance);
+        EdgePenalties penalties = edgePenalties.get();
+
+        MultiRoute bestRoundTrip = null;
+        double bestScore = Double.POSITIVE_INFINITY;
+
+        for (int direction = 0; direction < ROUND_TRIP_DIRECTION_COUNT; direction++) {
+            int[] outwardPath = outwardPaths[direction];
+            int[] otherPath = outwardPaths[(direction + ROUND_TRIP_TURN) % ROUND_TRIP_DIRECTION_COUNT];
+
+            if (outwardPath == null || otherPath == null) continue;
+
+            int firstTurnNodeId = graph.edgeTargetNodeId(outwardPath[outwardPath.length - 1]);
+            int secondTurnNodeId = graph.edgeTargetNodeId(otherPath[otherPath.length - 1]);
+
+            if (firstTurnNodeId == secondTurnNodeId) continue;
+
+            penalties.reset();
+            penalizeWithTwins(penalties, outwardPath);
+
+            int[] middlePath = penalizedPath(firstTurnNodeId, secondTurnNodeId, penalties, Integer.MAX_VALUE);
+            if (middlePath == null) continue;
+            penalizeWithTwins(penalties, middlePath);
+
+            int[] returnPath = penalizedPath(secondTurnNodeId, startNodeId, penalties, Integer.MAX_VALUE);
+            if (returnPath == null) continue;
+
+            double length = 0;
+            double reusedLength = 0;
+            BitSet usedEdgeIds = new BitSet(graph.edgeCount());
+
+            for (int[] path : List.of(outwardPath, middlePath, returnPath)) {
+                for (int edgeId : path) {
+                    length += graph.edgeLength(edgeId);
+                    if (usedEdgeIds.get(edgeId)) reusedLength += graph.edgeLength(edgeId);
+
+                    usedEdgeIds.set(edgeId);
+                    int twinEdgeId = EdgeAnchor.twinEdgeId(graph, edgeId);
+                    if (twinEdgeId != -1) usedEdgeIds.set(twinEdgeId);
+                }
+            }
+
+            double score = Math.abs(length - targetLength) / targetLength + reusedLength / length;
+
+            if (score < bestScore) {
+                bestScore = score;
+                bestRoundTrip = new MultiRoute(List.of(
+                        new SingleRoute(RoutePaths.edges(graph, startNodeId, outwardPath)),
+                        new SingleRoute(RoutePaths.edges(graph, firstTurnNodeId, middlePath)),
+                        new SingleRoute(RoutePaths.edges(graph, secondTurnNodeId, returnPath))));
+            }
+        }
+
+        return bestRoundTrip;
+    }
+
+    /**
+     * Calcule les coûts et les longueurs des meilleurs itinéraires entre chacun des noeuds de départ et
+     * chacun des noeuds d'arrivée donnés, sans construire les itinéraires ; équivalent à matrixBetween avec
+     * un coût maximal infini
+     *
+     * @param sourceNodeIds identités des noeuds de départ, une par ligne de la matrice
+     * @param targetNodeIds identités des noeuds d'arrivée, une par colonne de la matrice
+     * @return les matrices des coûts et des longueurs des meilleurs itinéraires
+     * @throws CancellationException si le fil d'exécution est interrompu pendant le calcul
+     */
+    public RouteMatrix matrixBetween(int[] sourceNodeIds, int[] targetNodeIds) {
+        return matrixBetween(sourceNodeIds, targetNodeIds, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Calcule les coûts et les longueurs des meilleurs itinéraires, d'un coût d'au plus le coût maximal
+     * donné, entre chacun des noeuds de départ et chacun des noeuds d'arrivée donnés, sans construire les
+     * itinéraires ; équivalent à matrixBetween avec l'exécuteur partagé ForkJoinPool.commonPool()
+     *
+     * @param sourceNodeIds identités des noeuds de départ, une par ligne de la matrice
+     * @param targetNodeIds identités des noeuds d'arrivée, une par colonne de la matrice
+     * @param maxCost coût au-delà duquel un itinéraire n'est pas recherché
+     * @return les matrices des coûts et des longueurs des meilleurs itinéraires, infinis pour les itinéraires
+     * inexistants ou plus coûteux que le coût maximal
+     * @throws IllegalArgumentException si le coût maximal est négatif
+     * @throws CancellationException si le fil d'exécution est interrompu pendant le calcul
+     */
+    public RouteMatrix matrixBetween(int[] sourceNodeIds, int[] targetNodeIds, double maxCost) {
+        return matrixBetween(sourceNodeIds, targetNodeIds, maxCost, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Calcule les coûts et les longueurs des meilleurs itinéraires, d'un coût d'au plus le coût maximal
+     * donné, entre chacun des noeuds de départ et chacun des noeuds d'arrivée donnés, sans construire les
+     * itinéraires. Le moteur CONTRACTION_HIERARCHY utilise l'algorithme des seaux de la hiérarchie, dans le
+     * fil d'exécution appelant ; pour les autres moteurs, une recherche de Dijkstra par noeud de départ
+     * parcourt le graphe jusqu'à avoir atteint tous les noeuds d'arrivée ou le coût maximal. Les lignes de
+     * la matrice sont alors calculées par le fil d'exécution appelant et, en parallèle, par au plus un fil
+     * de moins que de processeurs de l'exécuteur donné, chaque fil d'exécution réutilisant son espace de
+     * travail. Le fil appelant ne fait qu'attendre la fin des lignes commencées par d'autres : les tâches de
+     * l'exécuteur qui n'ont pas encore commencé, par exemple parce qu'il est occupé, ne sont pas attendues,
+     * de sorte que l'exécuteur peut être celui dont le fil appelant fait partie. Le coût maximal borne en
+     * particulier les recherches dont l'un des noeuds d'arrivée est inaccessible, qui parcourent sinon
+     * toute la partie du graphe accessible depuis le noeud de départ
+     *
+     * @param sourceNodeIds identités des noeuds de départ, une par ligne de la matrice
+     * @param targetNodeIds identités des noeuds d'arrivée, une par colonne de la matrice
+     * @param maxCost coût au-delà duquel un itinéraire n'est pas recherché
+     * @param executor exécuteur calculant une partie des lignes de la matrice
+     * @return les matrices des coûts et des longueurs des meilleurs itinéraires, infinis pour les itinéraires
+     * inexistants ou plus coûteux que le coût maximal
+     * @throws IllegalArgumentException si le coût maximal est négatif
+     * @throws CancellationException si le fil d'exécution est interrompu pendant le calcul, auquel cas
+     * le calcul des lignes restantes est abandonné
+     */
+    public RouteMatrix matrixBetween(int[] sourceNodeIds, int[] targetNodeIds, double maxCost,
+                                     ExecutorService executor) {
+
+        Preconditions.checkArgument(maxCost >= 0);
+
+        if (engine == Engine.CONTRACTION_HIERARCHY) {
+            return hierarchy.matrixBetween(sourceNodeIds, targetNodeIds, maxCost);
+        }
+
+        boolean[] isTarget = new boolean[graph.nodeCount()];
+        int distinctTargetCount = 0;
+
+        for (int targetNodeId : targetNodeIds) {
+            if (!isTarget[targetNodeId]) {
+                isTarget[targetNodeId] = true;
+                distinctTargetCount += 1;
+            }
+        }
+
+        double[] costs = new double[sourceNodeIds.length * targetNodeIds.length];
+        double[] lengths = new double[costs.length];
+        int targetCount = distinctTargetCount;
+
+        // Chaque fil d'exécution calcule la prochaine ligne non attribuée, jusqu'à ce qu'il n'en reste plus
+        AtomicInteger nextRow = new AtomicInteger();
+        Runnable rowFiller = () -> {
+            for (int row = nextRow.getAndIncrement(); row < sourceNodeIds.length; row = nextRow.getAndIncrement()) {
+                fillMatrixRow(row, sourceNodeIds[row], targetNodeIds, isTarget, targetCount, maxCost, costs, lengths);
+            }
+        };
+
+        int helperCount = Math.min(sourceNodeIds.length, Runtime.getRuntime().availableProcessors()) - 1;
+        List<AtomicBoolean> helperStarts = new ArrayList<>(helperCount);
+        List<Future<?>> helpers = new ArrayList<>(helperCount);
+        boolean completed = false;
+
+        try {
+            for (int i = 0; i < helperCount; i++) {
+                AtomicBoolean started = new AtomicBoolean();
+                helperStarts.add(started);
+                helpers.add(executor.submit(() -> {
+                    if (started.compareAndSet(false, true)) rowFiller.run();
+                }));
+            }
+
+            rowFiller.run();
+
+            for (int i = 0; i < helperCount; i++) {
+                // Une tâche qui n'a pas encore commencé ne commencera plus, seules les autres sont attendues
+                if (!helperStarts.get(i).compareAndSet(false, true)) join(helpers.get(i));
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                // Aucune ligne n'est plus attribuée, et les lignes en cours sont interrompues
+                nextRow.set(sourceNodeIds.length);
+                helpers.forEach(helper -> helper.cancel(true));
+            }
+        }
+
+        return new RouteMatrix(sourceNodeIds.length, targetNodeIds.length, costs, lengths);
+    }
+
+    /**
+     * Calcule les coûts et les longueurs des meilleurs itinéraires, d'un coût d'au plus le coût maximal
+     * donné, entre chacune des positions au milieu d'arêtes données et chacune des autres, sans construire
+     * les itinéraires. Chaque position est rattachée aux noeuds de son arête comme par bestRouteBetween,
+     * la matrice entre ces noeuds est calculée par matrixBetween avec l'exécuteur donné, puis le coût d'un
+     * itinéraire est le plus petit de ceux passant par l'un des rattachements de chacune de ses extrémités,
+     * ou de celui de la portion d'arête les reliant directement
+     *
+     * @param positions les positions, une par ligne et par colonne de la matrice
+     * @param maxCost coût au-delà duquel un itinéraire n'est pas recherché
+     * @param executor exécuteur calculant une partie des lignes de la matrice entre les noeuds
+     * @return les matrices des coûts et des longueurs des meilleurs itinéraires, nuls entre deux positions
+     * confondues, et infinis pour les itinéraires inexistants ou plus coûteux que le coût maximal
+     * @throws IllegalArgumentException si le coût maximal est négatif
+     * @throws CancellationException si le fil d'exécution est interrompu pendant le calcul
+     */
+    public RouteMatrix matrixBetween(List<EdgePosition> positions, double maxCost, ExecutorService executor) {
+
+        Preconditions.checkArgument(maxCost >= 0);
+
+        int count = positions.size();
+        List<List<EdgeAnchor>> startAnchors = new ArrayList<>(count);
+        List<List<EdgeAnchor>> endAnchors = new ArrayList<>(count);
+        Map<Integer, Integer> sourceIndices = new HashMap<>();
+        Map<Integer, Integer> targetIndices = new HashMap<>();
+
+        for (EdgePosition position : positions) {
+            List<EdgeAnchor> starts = EdgeAnchor.startAnchors(graph, costFunction, position);
+            List<EdgeAnchor> ends = EdgeAnchor.endAnchors(graph, costFunction, position);
+
+            starts.forEach(anchor -> sourceIndices.putIfAbsent(anchor.nodeId(), sourceIndices.size()));
+            ends.forEach(anchor -> targetIndices.putIfAbsent(anchor.nodeId(), targetIndices.size()));
+            startAnchors.add(starts);
+            endAnchors.add(ends);
+        }
+
+        int[] sourceNodeIds = new int[sourceIndices.size()];
+        sourceIndices.forEach((nodeId, index) -> sourceNodeIds[index] = nodeId);
+        int[] targetNodeIds = new int[targetIndices.size()];
+        targetIndices.forEach((nodeId, index) -> targetNodeIds[index] = nodeId);
+
+        RouteMatrix nodeMatrix = matrixBetween(sourceNodeIds, targetNodeIds, maxCost, executor);
+
+        double[] costs = new double[count * count];
+        double[] lengths = new double[costs.length];
+
+        for (int row = 0; row < count; row++) {
+            for (int column = 0; column < count; column++) {
+                int index = row * count + column;
+                EdgePosition start = positions.get(row);
+                EdgePosition end = positions.get(column);
+
+                if (row == column || EdgeAnchor.sameLocation(graph, start, end)) continue;
+
+                double bestCost = Double.POSITIVE_INFINITY;
+                double bestLength = Double.POSITIVE_INFINITY;
+
+                EdgeAnchor direct = EdgeAnchor.direct(graph, costFunction, start, end);
+                if (direct != null) {
+                    bestCost = direct.cost();
+                    bestLength = direct.length();
+                }
+
+                for (EdgeAnchor startAnchor : startAnchors.get(row)) {
+                    int sourceIndex = sourceIndices.get(startAnchor.nodeId());
+
+                    for (EdgeAnchor endAnchor : endAnchors.get(column)) {
+                        int targetIndex = targetIndices.get(endAnchor.nodeId());
+                        double cost = startAnchor.cost() + nodeMatrix.cost(sourceIndex, targetIndex)
+                                + endAnchor.cost();
+
+                        if (cost < bestCost) {
+                            bestCost = cost;
+                            bestLength = startAnchor.length() + nodeMatrix.length(sourceIndex, targetIndex)
+                                    + endAnchor.length();
+                        }
+                    }
+                }
+
+                boolean found = bestCost <= maxCost;
+                costs[index] = found ? bestCost : Double.POSITIVE_INFINITY;
+                lengths[index] = found ? bestLength : Double.POSITIVE_INFINITY;
+            }
+        }
+
+        return new RouteMatrix(count, count, costs, lengths);
+    }
+
+    /**
+     * Méthode outil qui calcule une ligne des matrices des coûts et des longueurs au moyen d'une recherche de
+     * Dijkstra depuis le noeud de départ, arrêtée dès que tous les noeuds d'arrivée sont atteints ou que le
+     * coût maximal est dépassé
+     *
+     * @param row index de la ligne
+     * @param sourceNodeId Identité du noeud de départ
+     * @param targetNodeIds identités des noeuds d'arrivée
+     * @param isTarget vrai pour chaque noeud du graphe faisant partie des noeuds d'arrivée
+     * @param targetCount nombre de noeuds d'arrivée distincts
+     * @param maxCost coût au-delà duquel un itinéraire n'est pas recherché
+     * @param costs matrice des coûts, ligne par ligne
+     * @param lengths matrice des longueurs, ligne par ligne
+     */
+    private void fillMatrixRow(int row, int sourceNodeId, int[] targetNodeIds, boolean[] isTarget,
+                               int targetCount, double maxCost, double[] costs, double[] lengths) {
+
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+
+        workspace.reach(sourceNodeId, 0, SearchWorkspace.NO_PREDECESSOR, SearchWorkspace.NO_PREDECESSOR);
+
+        IndexedMinHeap enExploration = workspace.heap();
+        enExploration.insertOrDecrease(sourceNodeId, 0);
+
+        int remainingTargetCount = targetCount;
+
+        while (remainingTargetCount > 0 && !enExploration.isEmpty() && enExploration.minKey() <= maxCost) {
+            int nodeId = enExploration.removeMin();
+            double nodeDistance = workspace.distance(nodeId);
+            workspace.settle(nodeId);
+
+            if (isTarget[nodeId]) remainingTargetCount -= 1;
+
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int nodeOutId = graph.edgeTargetNodeId(edgeId);
+
+                if (workspace.isSettled(nodeOutId)) continue;
+
+                double distance = nodeDistance
+                        + costFunction.costFactor(nodeId, edgeId) * graph.edgeLength(edgeId);
+
+                if (distance < workspace.distance(nodeOutId)) {
+                    workspace.reach(nodeOutId, distance, nodeId, edgeId);
+                    enExploration.insertOrDecrease(nodeOutId, (float) distance);
+                }
+            }
+        }
+
+        for (int column = 0; column < targetNodeIds.length; column++) {
+            int targetNodeId = targetNodeIds[column];
+            int index = row * targetNodeIds.length + column;
+
+            if (workspace.isSettled(targetNodeId)) {
+                costs[index] = workspace.distance(targetNodeId);
+                lengths[index] = pathLength(targetNodeId, workspace);
+            } else {
+                costs[index] = Double.POSITIVE_INFINITY;
+                lengths[index] = Double.POSITIVE_INFINITY;
+            }
+        }
+    }
+
+    /**
+     * Méthode outil qui détermine le meilleur itinéraire au moyen d'une recherche A* à tas indexé dans
+     * laquelle le coût de chaque arête pénalisée est multiplié par sa pénalité ; les pénalités étant
+     * supérieures à 1, l'heuristique reste une borne inférieure du coût
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId   Identité du noeud d'arrivée
+     * @param penalties table des facteurs de pénalité des arêtes
+     * @param maxSettledCount nombre maximal de noeuds visités par la recherche
+     * @return les identités des arêtes de l'itinéraire idéal, dans l'ordre, null s'il n'existe pas ou si
+     * la recherche a visité le nombre maximal de noeuds sans l'avoir trouvé
+     */
+    private int[] penalizedPath(int startNodeId, int endNodeId, EdgePenalties penalties,
+                                int maxSettledCount) {
+
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+
+        workspace.setDistance(startNodeId, 0);
+
+        IndexedMinHeap enExploration = workspace.heap();
+        enExploration.insertOrDecrease(startNodeId, 0);
+
+        while (!enExploration.isEmpty() && workspace.settledCount() < maxSettledCount) {
+            int nodeId = enExploration.removeMin();
+
+            if (nodeId == endNodeId) {
+                return buildPath(startNodeId, endNodeId, workspace);
+            }
+
+            double nodeDistance = workspace.distance(nodeId);
+            workspace.settle(nodeId);
+
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int nodeOutId = graph.edgeTargetNodeId(edgeId);
+
+                if (workspace.isSettled(nodeOutId)) continue;
+
+                double distance = nodeDistance + costFunction.costFactor(nodeId, edgeId)
+                        * graph.edgeLength(edgeId) * penalties.factor(edgeId);
+
+                if (distance < workspace.distance(nodeOutId)) {
+                    workspace.reach(nodeOutId, distance, nodeId, edgeId);
+
+                    enExploration.insertOrDecrease(nodeOutId,
+                            (float) (distance + heuristic.lowerBound(nodeOutId, endNodeId)));
+                }
+            }
+        }
+
+        return null;
+    }
 
     /**
-     * Fonction qui permet de calculer le facteur multiplicateur relatif à la praticabilité à vélo d'une arête
+     * Méthode outil qui détermine, au moyen d'une recherche de Dijkstra bornée depuis le noeud de départ,
+     * le point de demi-tour de chaque direction : parmi les noeuds dont la distance à vol d'oiseau au départ
+     * diffère d'au plus ROUND_TRIP_RING_TOLERANCE de la distance donnée, celui dont le coût rapporté à cette
+     * distance est le plus petit. Afin de ne pas dépendre de l'échelle des coûts, la recherche s'arrête
+     * lorsque le coût dépasse ROUND_TRIP_SEARCH_COST_FACTOR fois le coût du premier point candidat trouvé,
+     * ramené à la plus grande distance admise
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param turnaroundDistance distance à vol d'oiseau souhaitée des points de demi-tour, en mètres
+     * @return pour chaque direction, les identités des arêtes de l'itinéraire menant du départ au point de
+     * demi-tour, null si la direction n'en a aucun
      */
-    private final CostFunction costFunction;
+    private int[][] turnaroundPaths(int startNodeId, double turnaroundDistance) {
+
+        double minDistance = turnaroundDistance * (1 - ROUND_TRIP_RING_TOLERANCE);
+        double maxDistance = turnaroundDistance * (1 + ROUND_TRIP_RING_TOLERANCE);
+        double maxCost = Double.POSITIVE_INFINITY;
+
+        int[] turnNodeIds = new int[ROUND_TRIP_DIRECTION_COUNT];
+        double[] turnScores = new double[ROUND_TRIP_DIRECTION_COUNT];
+        Arrays.fill(turnNodeIds, -1);
+        Arrays.fill(turnScores, Double.POSITIVE_INFINITY);
+
+        PointCh startPoint = graph.nodePoint(startNodeId);
+
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+
+        workspace.reach(startNodeId, 0, SearchWorkspace.NO_PREDECESSOR, SearchWorkspace.NO_PREDECESSOR);
+
+        IndexedMinHeap enExploration = workspace.heap();
+        enExploration.insertOrDecrease(startNodeId, 0);
+
+        while (!enExploration.isEmpty() && enExploration.minKey() <= maxCost) {
+            int nodeId = enExploration.removeMin();
+            double nodeDistance = workspace.distance(nodeId);
+            workspace.settle(nodeId);
+
+            PointCh nodePoint = graph.nodePoint(nodeId);
+            double distance = startPoint.distanceTo(nodePoint);
+
+            if (minDistance <= distance && distance <= maxDistance) {
+                double angle = Math.atan2(nodePoint.n() - startPoint.n(), nodePoint.e() - startPoint.e());
+                int direction = Math.floorMod(
+                        (int) Math.floor(angle / (2 * Math.PI) * ROUND_TRIP_DIRECTION_COUNT),
+                        ROUND_TRIP_DIRECTION_COUNT);
+                double score = nodeDistance / distance;
+
+                if (maxCost == Double.POSITIVE_INFINITY) {
+                    maxCost = ROUND_TRIP_SEARCH_COST_FACTOR * score * maxDistance;
+                }
+
+                if (score < turnScores[direction]) {
+                    turnScores[direction] = score;
+                    turnNodeIds[direction] = nodeId;
+                }
+            }
+
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int nodeOutId = graph.edgeTargetNodeId(edgeId);
+
+                if (workspace.isSettled(nodeOutId)) continue;
+
+                double cost = nodeDistance + costFunction.costFactor(nodeId, edgeId) * graph.edgeLength(edgeId);
+
+                if (cost < workspace.distance(nodeOutId)) {
+                    workspace.reach(nodeOutId, cost, nodeId, edgeId);
+                    enExploration.insertOrDecrease(nodeOutId, (float) cost);
+                }
+            }
+        }
+
+        int[][] paths = new int[ROUND_TRIP_DIRECTION_COUNT][];
+        for (int direction = 0; direction < ROUND_TRIP_DIRECTION_COUNT; direction++) {
+            if (turnNodeIds[direction] != -1) {
+                paths[direction] = buildPath(startNodeId, turnNodeIds[direction], workspace);
+            }
+        }
+        return paths;
+    }
 
     /**
-     * Constructeur qui affecte le graphe et la fonction decoût aux attributs
+     * Méthode outil qui pénalise les arêtes données ainsi que leurs arêtes de sens opposé, afin que les
+     * itinéraires suivants d'une boucle évitent de les parcourir à nouveau
      *
-     * @param graph Graphe Javelo
-     * @param costFunction Fonction de Cout
+     * @param penalties table des facteurs de pénalité des arêtes
+     * @param path identités des arêtes à pénaliser
      */
-    public RouteComputer(Graph graph, CostFunction costFunction) {
-        this.graph = graph;
-        this.costFunction = costFunction;
+    private void penalizeWithTwins(EdgePenalties penalties, int[] path) {
+        for (int edgeId : path) {
+            penalties.set(edgeId, ROUND_TRIP_REUSE_PENALTY);
+
+            int twinEdgeId = EdgeAnchor.twinEdgeId(graph, edgeId);
+            if (twinEdgeId != -1) penalties.set(twinEdgeId, ROUND_TRIP_REUSE_PENALTY);
+        }
     }
 
     /**
-     * Détermine le meilleur itinéraire simple entre les deux noeuds Javelo donnés
+     * Méthode outil qui calcule le coût de l'itinéraire composé des arêtes données, sans pénalité
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param path identités des arêtes de l'itinéraire, dans l'ordre
+     * @return le coût de l'itinéraire
+     */
+    private double pathCost(int startNodeId, int[] path) {
+        double cost = 0;
+        int nodeId = startNodeId;
+
+        for (int edgeId : path) {
+            cost += costFunction.costFactor(nodeId, edgeId) * graph.edgeLength(edgeId);
+            nodeId = graph.edgeTargetNodeId(edgeId);
+        }
+        return cost;
+    }
+
+    /**
+     * Méthode outil qui attend la fin du calcul des lignes de matrice confiées à une tâche de l'exécuteur
+     * @param row la tâche
+     * @throws CancellationException si le fil d'exécution est interrompu pendant l'attente
+     */
+    private static void join(Future<?> row) {
+        try {
+            row.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Méthode outil qui calcule la longueur de l'itinéraire menant du noeud de départ de la recherche au
+     * noeud donné, en remontant ses noeuds et arêtes prédécesseurs
+     *
+     * @param nodeId Identité du noeud, qui doit avoir été atteint
+     * @param workspace espace de travail de la recherche
+     * @return la longueur en mètres
+     */
+    private double pathLength(int nodeId, SearchWorkspace workspace) {
+        double length = 0;
+
+        for (int currentNodeId = nodeId; workspace.predecessorNode(currentNodeId) != SearchWorkspace.NO_PREDECESSOR;
+             currentNodeId = workspace.predecessorNode(currentNodeId)) {
+            length += graph.edgeLength(workspace.predecessorEdge(currentNodeId));
+        }
+        return length;
+    }
+
+    /**
+     * Méthode outil qui détermine les arêtes du meilleur itinéraire entre les deux noeuds donnés au moyen
+     * du moteur de recherche du calculateur
      *
      * @param startNodeId Identité du noeud de départ
      * @param endNodeId   Identité du noeud d'arrivée
-     * @return l'itinéraire simple idéale entre les deux noeuds, null s'il n'existe pas
+     * @return les identités des arêtes de l'itinéraire idéal, dans l'ordre, null s'il n'existe pas
      */
-    public Route bestRouteBetween(int startNodeId, int endNodeId) {
+    private int[] bestPathBetween(int startNodeId, int endNodeId) {
 
         Preconditions.checkArgument(startNodeId != endNodeId);
 
+        return switch (engine) {
+            case PRIORITY_QUEUE -> bestPathWithPriorityQueue(startNodeId, endNodeId);
+            case INDEXED_HEAP -> bestPathWithIndexedHeap(startNodeId, endNodeId);
+            case BIDIRECTIONAL -> bestPathBidirectional(startNodeId, endNodeId);
+            case CONTRACTION_HIERARCHY -> hierarchy.bestPathBetween(startNodeId, endNodeId);
+        };
+    }
+
+    /**
+     * Retourne la position d'un noeud sous forme de position sur l'une de ses arêtes, afin de combiner
+     * noeuds et positions au milieu d'arêtes dans un même itinéraire
+     *
+     * @param nodeId Identité du noeud
+     * @return la position du noeud au début de l'une de ses arêtes sortantes, ou à défaut à la fin de
+     * l'une de ses arêtes entrantes
+     * @throws IllegalArgumentException si le noeud est isolé
+     */
+    public EdgePosition positionOfNode(int nodeId) {
+        if (graph.nodeOutDegree(nodeId) > 0) return new EdgePosition(graph.nodeOutEdgeId(nodeId, 0), 0);
+
+        Preconditions.checkArgument(graph.nodeInDegree(nodeId) > 0);
+        int edgeId = graph.nodeInEdgeId(nodeId, 0);
+        return new EdgePosition(edgeId, graph.edgeLength(edgeId));
+    }
+
+    /**
+     * Retourne le nombre de noeuds visités par la dernière recherche effectuée par le fil
+     * d'exécution courant, toutes directions confondues ; utile aux bancs d'essai des moteurs
+     *
+     * @return le nombre de noeuds visités
+     */
+    int settledNodeCount() {
+        return switch (engine) {
+            case PRIORITY_QUEUE -> queueSettledCounts.get();
+            case INDEXED_HEAP -> workspaces.get().settledCount();
+            case BIDIRECTIONAL -> workspaces.get().settledCount() + backwardWorkspaces.get().settledCount();
+            case CONTRACTION_HIERARCHY -> hierarchy.settledNodeCount();
+        };
+    }
+
+    /**
+     * Méthode outil qui détermine le meilleur itinéraire au moyen d'une file de priorité
+     * d'objets WeightedNode et d'une table associative des arêtes prédécesseures
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId   Identité du noeud d'arrivée
+     * @return les identités des arêtes de l'itinéraire idéal, dans l'ordre, null s'il n'existe pas
+     */
+    private int[] bestPathWithPriorityQueue(int startNodeId, int endNodeId) {
+
         double[] distances = new double[graph.nodeCount()];
         int[] predecesseur = new int[graph.nodeCount()];
         Map<Integer, Integer> map = new HashMap<>();
@@ -59,27 +1026,28 @@ public final class RouteComputer {
         enExploration.add(new WeightedNode(startNodeId, 0));
 
         PointCh endPoint = graph.nodePoint(endNodeId);
+        int settledCount = 0;
 
         while (!enExploration.isEmpty()) {
             WeightedNode node = enExploration.remove();
 
             if (node.nodeId == endNodeId) {
-                List<Edge> edgeList = new ArrayList<>();
+                queueSettledCounts.set(settledCount);
+                List<Integer> edgeList = new ArrayList<>();
                 int currentNodeId = endNodeId;
 
                 while (currentNodeId != startNodeId) {
-                    int previousNodeId = predecesseur[currentNodeId];
-
-                    edgeList.add(Edge.of(graph, map.get(currentNodeId), previousNodeId, currentNodeId));
+                    edgeList.add(map.get(currentNodeId));
 
-                    currentNodeId = previousNodeId;
+                    currentNodeId = predecesseur[currentNodeId];
                 }
 
                 Collections.reverse(edgeList);
-                return new SingleRoute(edgeList);
+                return edgeList.stream().mapToInt(Integer::intValue).toArray();
             }
 
             if (distances[node.nodeId] != Float.NEGATIVE_INFINITY) {
+                settledCount += 1;
 
                 for (int i = 0; i < graph.nodeOutDegree(node.nodeId); i++) {
 
@@ -105,9 +1073,347 @@ public final class RouteComputer {
             }
         }
 
+        queueSettledCounts.set(settledCount);
+        return null;
+    }
+
+    /**
+     * Méthode outil qui détermine le meilleur itinéraire au moyen d'un tas binaire indexé
+     * de types primitifs, les distances et prédécesseurs étant stockés dans l'espace de travail
+     * réutilisable du fil d'exécution courant
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId   Identité du noeud d'arrivée
+     * @return les identités des arêtes de l'itinéraire idéal, dans l'ordre, null s'il n'existe pas
+     */
+    private int[] bestPathWithIndexedHeap(int startNodeId, int endNodeId) {
+
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+
+        workspace.setDistance(startNodeId, 0);
+
+        IndexedMinHeap enExploration = workspace.heap();
+
+        enExploration.insertOrDecrease(startNodeId, 0);
+
+        while (!enExploration.isEmpty()) {
+            int nodeId = enExploration.removeMin();
+
+            if (nodeId == endNodeId) {
+                return buildPath(startNodeId, endNodeId, workspace);
+            }
+
+            double nodeDistance = workspace.distance(nodeId);
+            workspace.settle(nodeId);
+
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int nodeOutId = graph.edgeTargetNodeId(edgeId);
+
+                if (workspace.isSettled(nodeOutId)) continue;
+
+                double distance = nodeDistance
+                        + costFunction.costFactor(nodeId, edgeId) * graph.edgeLength(edgeId);
+
+                if (distance < workspace.distance(nodeOutId)) {
+                    workspace.reach(nodeOutId, distance, nodeId, edgeId);
+
+                    enExploration.insertOrDecrease(nodeOutId,
+                            (float) (distance + heuristic.lowerBound(nodeOutId, endNodeId)));
+                }
+            }
+        }
+
         return null;
     }
 
+    /**
+     * Méthode outil qui détermine le meilleur itinéraire au moyen d'une recherche A* bidirectionnelle :
+     * une recherche avant part du noeud de départ en suivant les arêtes sortantes, une recherche arrière
+     * part du noeud d'arrivée en suivant les arêtes entrantes, et la recherche s'arrête lorsque la somme
+     * des plus petites priorités des deux côtés atteint le coût du meilleur itinéraire trouvé.
+     * Les deux recherches utilisent le potentiel moyen (h(n, arrivée) - h(départ, n)) / 2, où h est
+     * l'heuristique, qui garantit un critère d'arrêt correct.
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId   Identité du noeud d'arrivée
+     * @return les identités des arêtes de l'itinéraire idéal, dans l'ordre, null s'il n'existe pas
+     */
+    private int[] bestPathBidirectional(int startNodeId, int endNodeId) {
+
+        SearchWorkspace forward = workspaces.get();
+        SearchWorkspace backward = backwardWorkspaces.get();
+        forward.reset();
+        backward.reset();
+
+        IndexedMinHeap forwardExploration = forward.heap();
+        IndexedMinHeap backwardExploration = backward.heap();
+
+        forward.setDistance(startNodeId, 0);
+        forwardExploration.insertOrDecrease(startNodeId,
+                (float) forwardPotential(startNodeId, startNodeId, endNodeId));
+        backward.setDistance(endNodeId, 0);
+        backwardExploration.insertOrDecrease(endNodeId,
+                (float) -forwardPotential(endNodeId, startNodeId, endNodeId));
+
+        double bestDistance = Double.POSITIVE_INFINITY;
+        int meetingNodeId = -1;
+
+        while (!forwardExploration.isEmpty() && !backwardExploration.isEmpty()) {
+
+            if (forwardExploration.minKey() + backwardExploration.minKey() >= bestDistance) break;
+
+            if (forwardExploration.size() <= backwardExploration.size()) {
+                int nodeId = forwardExploration.removeMin();
+                double nodeDistance = forward.distance(nodeId);
+                forward.settle(nodeId);
+
+                for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+
+                    int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                    int nodeOutId = graph.edgeTargetNodeId(edgeId);
+
+                    if (forward.isSettled(nodeOutId)) continue;
+
+                    double distance = nodeDistance
+                            + costFunction.costFactor(nodeId, edgeId) * graph.edgeLength(edgeId);
+
+                    if (distance < forward.distance(nodeOutId)) {
+                        forward.reach(nodeOutId, distance, nodeId, edgeId);
+                        forwardExploration.insertOrDecrease(nodeOutId,
+                                (float) (distance + forwardPotential(nodeOutId, startNodeId, endNodeId)));
+
+                        double throughDistance = distance + backward.distance(nodeOutId);
+                        if (throughDistance < bestDistance) {
+                            bestDistance = throughDistance;
+                            meetingNodeId = nodeOutId;
+                        }
+                    }
+                }
+            } else {
+                int nodeId = backwardExploration.removeMin();
+                double nodeDistance = backward.distance(nodeId);
+                backward.settle(nodeId);
+
+                for (int i = 0; i < graph.nodeInDegree(nodeId); i++) {
+
+                    int edgeId = graph.nodeInEdgeId(nodeId, i);
+                    int nodeInId = graph.edgeSourceNodeId(edgeId);
+
+                    if (backward.isSettled(nodeInId)) continue;
+
+                    double distance = nodeDistance
+                            + costFunction.costFactor(nodeInId, edgeId) * graph.edgeLength(edgeId);
+
+                    if (distance < backward.distance(nodeInId)) {
+                        backward.reach(nodeInId, distance, nodeId, edgeId);
+                        backwardExploration.insertOrDecrease(nodeInId,
+                                (float) (distance - forwardPotential(nodeInId, startNodeId, endNodeId)));
+
+                        double throughDistance = distance + forward.distance(nodeInId);
+                        if (throughDistance < bestDistance) {
+                            bestDistance = throughDistance;
+                            meetingNodeId = nodeInId;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (meetingNodeId == -1) return null;
+
+        int[] forwardPath = buildPath(startNodeId, meetingNodeId, forward);
+
+        int backwardEdgeCount = 0;
+        for (int currentNodeId = meetingNodeId; currentNodeId != endNodeId; ) {
+            currentNodeId = backward.predecessorNode(currentNodeId);
+            backwardEdgeCount += 1;
+        }
+
+        int[] path = Arrays.copyOf(forwardPath, forwardPath.length + backwardEdgeCount);
+
+        int index = forwardPath.length;
+        for (int currentNodeId = meetingNodeId; currentNodeId != endNodeId; ) {
+            path[index++] = backward.predecessorEdge(currentNodeId);
+
+            currentNodeId = backward.predecessorNode(currentNodeId);
+        }
+
+        return path;
+    }
+
+    /**
+     * Méthode outil qui détermine le meilleur itinéraire entre deux positions au milieu d'arêtes au moyen
+     * d'une recherche A* à tas indexé, initialisée avec les noeuds rattachés à la position de départ et
+     * guidée vers le plus proche des noeuds rattachés à la position d'arrivée ; la recherche s'arrête lorsque
+     * la plus petite priorité atteint le coût du meilleur itinéraire trouvé.
+     * Les noeuds de départ n'ont pas de noeud prédécesseur, et leur arête prédécesseure est l'index de leur
+     * rattachement.
+     *
+     * @param start position de départ
+     * @param end position d'arrivée
+     * @return l'itinéraire simple idéal entre les deux positions, null s'il n'existe pas
+     */
+    private Route bestRouteBetweenPositions(EdgePosition start, EdgePosition end) {
+
+        List<EdgeAnchor> startAnchors = EdgeAnchor.startAnchors(graph, costFunction, start);
+        List<EdgeAnchor> endAnchors = EdgeAnchor.endAnchors(graph, costFunction, end);
+        EdgeAnchor direct = EdgeAnchor.direct(graph, costFunction, start, end);
+
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+
+        IndexedMinHeap enExploration = workspace.heap();
+
+        for (int i = 0; i < startAnchors.size(); i++) {
+            EdgeAnchor anchor = startAnchors.get(i);
+
+            if (anchor.cost() < workspace.distance(anchor.nodeId())) {
+                workspace.reach(anchor.nodeId(), anchor.cost(), SearchWorkspace.NO_PREDECESSOR, i);
+                enExploration.insertOrDecrease(anchor.nodeId(),
+                        (float) (anchor.cost() + lowerBoundToAnchors(anchor.nodeId(), endAnchors)));
+            }
+        }
+
+        double bestDistance = direct == null ? Double.POSITIVE_INFINITY : direct.cost();
+        int bestEndAnchor = -1;
+
+        while (!enExploration.isEmpty() && enExploration.minKey() < bestDistance) {
+            int nodeId = enExploration.removeMin();
+            double nodeDistance = workspace.distance(nodeId);
+            workspace.settle(nodeId);
+
+            for (int i = 0; i < endAnchors.size(); i++) {
+                EdgeAnchor anchor = endAnchors.get(i);
+
+                if (anchor.nodeId() == nodeId && nodeDistance + anchor.cost() < bestDistance) {
+                    bestDistance = nodeDistance + anchor.cost();
+                    bestEndAnchor = i;
+                }
+            }
+
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int nodeOutId = graph.edgeTargetNodeId(edgeId);
+
+                if (workspace.isSettled(nodeOutId)) continue;
+
+                double distance = nodeDistance
+                        + costFunction.costFactor(nodeId, edgeId) * graph.edgeLength(edgeId);
+
+                if (distance < workspace.distance(nodeOutId)) {
+                    workspace.reach(nodeOutId, distance, nodeId, edgeId);
+
+                    enExploration.insertOrDecrease(nodeOutId,
+                            (float) (distance + lowerBoundToAnchors(nodeOutId, endAnchors)));
+                }
+            }
+        }
+
+        if (bestDistance == Double.POSITIVE_INFINITY) return null;
+        if (bestEndAnchor == -1) return EdgeAnchor.route(graph, direct, List.of(), null);
+
+        List<Edge> edgeList = new ArrayList<>();
+        int currentNodeId = endAnchors.get(bestEndAnchor).nodeId();
+
+        while (workspace.predecessorNode(currentNodeId) != SearchWorkspace.NO_PREDECESSOR) {
+            int previousNodeId = workspace.predecessorNode(currentNodeId);
+
+            edgeList.add(Edge.of(graph, workspace.predecessorEdge(currentNodeId), previousNodeId, currentNodeId));
+
+            currentNodeId = previousNodeId;
+        }
+        Collections.reverse(edgeList);
+
+        return EdgeAnchor.route(graph, startAnchors.get(workspace.predecessorEdge(currentNodeId)),
+                edgeList, endAnchors.get(bestEndAnchor));
+    }
+
+    /**
+     * Méthode outil qui calcule la plus petite borne inférieure du coût entre le noeud donné et les noeuds
+     * rattachés à la position d'arrivée
+     *
+     * @param nodeId Identité du noeud
+     * @param endAnchors rattachements de la position d'arrivée
+     * @return la borne inférieure, infinie s'il n'y a aucun rattachement
+     */
+    private double lowerBoundToAnchors(int nodeId, List<EdgeAnchor> endAnchors) {
+        double lowerBound = Double.POSITIVE_INFINITY;
+
+        for (EdgeAnchor anchor : endAnchors) {
+            lowerBound = Math.min(lowerBound, heuristic.lowerBound(nodeId, anchor.nodeId()));
+        }
+        return lowerBound;
+    }
+
+    /**
+     * Méthode outil qui calcule le potentiel de la recherche avant du moteur bidirectionnel,
+     * celui de la recherche arrière étant son opposé
+     *
+     * @param nodeId Identité du noeud
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId Identité du noeud d'arrivée
+     * @return le potentiel du noeud
+     */
+    private double forwardPotential(int nodeId, int startNodeId, int endNodeId) {
+        return (heuristic.lowerBound(nodeId, endNodeId) - heuristic.lowerBound(startNodeId, nodeId)) / 2;
+    }
+
+    /**
+     * Méthode outil qui reconstruit les arêtes de l'itinéraire en remontant les noeuds et arêtes
+     * prédécesseurs depuis le noeud d'arrivée jusqu'au noeud de départ
+     *
+     * @param startNodeId Identité du noeud de départ
+     * @param endNodeId Identité du noeud d'arrivée
+     * @param workspace espace de travail de la recherche ayant atteint le noeud d'arrivée
+     * @return les identités des arêtes de l'itinéraire entre les deux noeuds, dans l'ordre
+     */
+    private static int[] buildPath(int startNodeId, int endNodeId, SearchWorkspace workspace) {
+        int edgeCount = 0;
+        for (int currentNodeId = endNodeId; currentNodeId != startNodeId; ) {
+            currentNodeId = workspace.predecessorNode(currentNodeId);
+            edgeCount += 1;
+        }
+
+        int[] path = new int[edgeCount];
+        for (int currentNodeId = endNodeId; currentNodeId != startNodeId; ) {
+            path[--edgeCount] = workspace.predecessorEdge(currentNodeId);
+
+            currentNodeId = workspace.predecessorNode(currentNodeId);
+        }
+        return path;
+    }
+
+    /**
+     * Moteur de recherche utilisé par le calculateur d'itinéraires
+     */
+    public enum Engine {
+
+        /**
+         * Recherche A* d'origine, basée sur une PriorityQueue d'objets et une HashMap des arêtes
+         */
+        PRIORITY_QUEUE,
+
+        /**
+         * Recherche A* basée sur un tas binaire indexé et des tableaux de types primitifs
+         */
+        INDEXED_HEAP,
+
+        /**
+         * Recherche A* bidirectionnelle, qui visite moins de noeuds sur les longs itinéraires
+         */
+        BIDIRECTIONAL,
+
+        /**
+         * Recherche bidirectionnelle dans une hiérarchie de contraction précalculée par
+         * ContractionHierarchyBuilder pour la fonction de coût du calculateur
+         */
+        CONTRACTION_HIERARCHY
+    }
+
     /**
      * Enregistrement qui représente un noeud carctérisé par son identité et sa distance à des noeuds précis
      *
@@ -0,0 +1,121 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.Objects;
+
+/**
+ * Classe qui représente les matrices des coûts et des longueurs des meilleurs itinéraires entre chacun
+ * des noeuds de départ et chacun des noeuds d'arrivée d'un ensemble de requêtes, stockées ligne par ligne
+ * dans des tableaux de types primitifs ; les itinéraires eux-mêmes ne sont pas construits.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class RouteMatrix {
+
+    /**
+     * Nombre de noeuds de départ, c.-à-d. de lignes des matrices
+     */
+    private final int sourceCount;
+
+    /**
+     * Nombre de noeuds d'arrivée, c.-à-d. de colonnes des matrices
+     */
+    private final int targetCount;
+
+    /**
+     * Coûts des meilleurs itinéraires, ligne par ligne
+     */
+    private final double[] costs;
+
+    /**
+     * Longueurs des meilleurs itinéraires, ligne par ligne
+     */
+    private final double[] lengths;
+
+    /**
+     * Constructeur des matrices de coûts et de longueurs données, qui ne sont pas copiées
+     * @param sourceCount nombre de noeuds de départ
+     * @param targetCount nombre de noeuds d'arrivée
+     * @param costs coûts des meilleurs itinéraires, ligne par ligne
+     * @param lengths longueurs des meilleurs itinéraires, ligne par ligne
+     * @throws IllegalArgumentException si la taille de l'un des tableaux ne correspond pas au nombre
+     * de noeuds de départ et d'arrivée
+     */
+    RouteMatrix(int sourceCount, int targetCount, double[] costs, double[] lengths) {
+        Preconditions.checkArgument(costs.length == sourceCount * targetCount
+                && lengths.length == costs.length);
+
+        this.sourceCount = sourceCount;
+        this.targetCount = targetCount;
+        this.costs = costs;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Retourne le nombre de noeuds de départ
+     * @return le nombre de lignes des matrices
+     */
+    public int sourceCount() {
+        return sourceCount;
+    }
+
+    /**
+     * Retourne le nombre de noeuds d'arrivée
+     * @return le nombre de colonnes des matrices
+     */
+    public int targetCount() {
+        return targetCount;
+    }
+
+    /**
+     * Retourne le coût du meilleur itinéraire entre le noeud de départ et le noeud d'arrivée d'index donnés
+     * @param sourceIndex index du noeud de départ
+     * @param targetIndex index du noeud d'arrivée
+     * @return le coût, nul si les deux noeuds sont identiques et infini s'il n'existe aucun itinéraire
+     */
+    public double cost(int sourceIndex, int targetIndex) {
+        return costs[index(sourceIndex, targetIndex)];
+    }
+
+    /**
+     * Retourne la longueur du meilleur itinéraire entre le noeud de départ et le noeud d'arrivée d'index
+     * donnés
+     * @param sourceIndex index du noeud de départ
+     * @param targetIndex index du noeud d'arrivée
+     * @return la longueur en mètres, nulle si les deux noeuds sont identiques et infinie s'il n'existe
+     * aucun itinéraire
+     */
+    public double length(int sourceIndex, int targetIndex) {
+        return lengths[index(sourceIndex, targetIndex)];
+    }
+
+    /**
+     * Retourne une copie de la matrice des coûts, ligne par ligne
+     * @return le tableau des coûts, l'élément (i, j) se trouvant à l'index i * targetCount() + j
+     */
+    public double[] costs() {
+        return costs.clone();
+    }
+
+    /**
+     * Retourne une copie de la matrice des longueurs, ligne par ligne
+     * @return le tableau des longueurs, l'élément (i, j) se trouvant à l'index i * targetCount() + j
+     */
+    public double[] lengths() {
+        return lengths.clone();
+    }
+
+    /**
+     * Méthode outil qui retourne l'index dans les tableaux de l'élément des matrices d'index donnés
+     * @param sourceIndex index du noeud de départ
+     * @param targetIndex index du noeud d'arrivée
+     * @return l'index de l'élément
+     * @throws IndexOutOfBoundsException si l'un des index est invalide
+     */
+    private int index(int sourceIndex, int targetIndex) {
+        return Objects.checkIndex(sourceIndex, sourceCount) * targetCount
+                + Objects.checkIndex(targetIndex, targetCount);
+    }
+}
@@ -0,0 +1,40 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe qui convertit les chemins calculés par les recherches, c.-à-d. les suites d'identités d'arêtes
+ * du graphe partant d'un noeud donné, en arêtes d'itinéraire.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+final class RoutePaths {
+
+    /**
+     * Constructeur privé car la classe est non instanciable
+     */
+    private RoutePaths() {}
+
+    /**
+     * Retourne les arêtes du graphe d'identités données, sous forme d'arêtes d'itinéraire
+     * @param graph graphe Javelo
+     * @param startNodeId identité du noeud de départ de la première arête
+     * @param edgeIds identités des arêtes, chacune partant du noeud d'arrivée de la précédente
+     * @return la liste des arêtes, vide si le tableau est vide
+     */
+    static List<Edge> edges(Graph graph, int startNodeId, int[] edgeIds) {
+        List<Edge> edges = new ArrayList<>(edgeIds.length);
+        int fromNodeId = startNodeId;
+
+        for (int edgeId : edgeIds) {
+            int toNodeId = graph.edgeTargetNodeId(edgeId);
+            edges.add(Edge.of(graph, edgeId, fromNodeId, toNodeId));
+            fromNodeId = toNodeId;
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,217 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Espace de travail réutilisable d'une recherche d'itinéraire, contenant les distances,
+ * les prédécesseurs et le tas des noeuds en exploration.
+ * Chaque valeur est estampillée du numéro de génération de la recherche qui l'a écrite,
+ * de sorte que la réinitialisation entre deux recherches ne coûte que le nombre de noeuds
+ * encore en exploration, et non le nombre total de noeuds du graphe. Un noeud dont la
+ * distance est définitive (noeud visité) est estampillé du complément de la génération.
+ * Un espace de travail n'est pas partagé entre plusieurs fils d'exécution ; une recherche dont
+ * le fil d'exécution est interrompu est abandonnée au moyen d'une CancellationException.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+final class SearchWorkspace {
+
+    /**
+     * Noeud prédécesseur d'un noeud de départ atteint au moyen de reach
+     */
+    static final int NO_PREDECESSOR = -1;
+
+    /**
+     * Génération à laquelle aucune valeur n'a encore été écrite
+     */
+    private static final int NO_GENERATION = 0;
+
+    /**
+     * Masque du nombre de noeuds visités entre deux vérifications de l'interruption du fil d'exécution
+     */
+    private static final int INTERRUPT_CHECK_MASK = (1 << 10) - 1;
+
+    /**
+     * Génération ayant écrit la valeur de chaque noeud, complémentée si le noeud est visité
+     */
+    private final int[] generations;
+
+    /**
+     * Distance (coût) depuis le départ de chaque noeud atteint
+     */
+    private final double[] distances;
+
+    /**
+     * Noeud prédécesseur de chaque noeud atteint
+     */
+    private final int[] predecessorNode;
+
+    /**
+     * Arête par laquelle chaque noeud atteint l'a été
+     */
+    private final int[] predecessorEdge;
+
+    /**
+     * Tas des noeuds en exploration
+     */
+    private final IndexedMinHeap heap;
+
+    /**
+     * Génération de la recherche courante, toujours strictement positive une fois
+     * l'espace de travail réinitialisé
+     */
+    private int generation;
+
+    /**
+     * Nombre de noeuds visités lors de la recherche courante
+     */
+    private int settledCount;
+
+    /**
+     * Constructeur d'un espace de travail pour un graphe comportant le nombre de noeuds donné
+     * @param nodeCount nombre de noeuds du graphe
+     */
+    SearchWorkspace(int nodeCount) {
+        Preconditions.checkArgument(nodeCount >= 0);
+
+        this.generations = new int[nodeCount];
+        this.distances = new double[nodeCount];
+        this.predecessorNode = new int[nodeCount];
+        this.predecessorEdge = new int[nodeCount];
+        this.heap = new IndexedMinHeap(nodeCount);
+        this.generation = NO_GENERATION;
+    }
+
+    /**
+     * Retourne le nombre de noeuds que l'espace de travail peut contenir
+     * @return le nombre de noeuds
+     */
+    int capacity() {
+        return generations.length;
+    }
+
+    /**
+     * Prépare l'espace de travail pour une nouvelle recherche, toutes les distances
+     * redevenant infinies
+     */
+    void reset() {
+        heap.clear();
+        settledCount = 0;
+
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(generations, NO_GENERATION);
+            generation = NO_GENERATION;
+        }
+        generation += 1;
+    }
+
+    /**
+     * Retourne le tas des noeuds en exploration
+     * @return le tas
+     */
+    IndexedMinHeap heap() {
+        return heap;
+    }
+
+    /**
+     * Vérifie si le noeud donné a été atteint lors de la recherche courante
+     * @param nodeId identité du noeud
+     * @return true si le noeud a été atteint
+     */
+    boolean isReached(int nodeId) {
+        int nodeGeneration = generations[nodeId];
+
+        return nodeGeneration == generation || nodeGeneration == ~generation;
+    }
+
+    /**
+     * Vérifie si la distance du noeud donné est définitive lors de la recherche courante
+     * @param nodeId identité du noeud
+     * @return true si le noeud a été visité
+     */
+    boolean isSettled(int nodeId) {
+        return generations[nodeId] == ~generation;
+    }
+
+    /**
+     * Marque le noeud donné, qui doit avoir été atteint, comme visité
+     * @param nodeId identité du noeud
+     * @throws CancellationException si le fil d'exécution a été interrompu
+     */
+    void settle(int nodeId) {
+        assert isReached(nodeId);
+
+        generations[nodeId] = ~generation;
+        settledCount += 1;
+
+        if ((settledCount & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Retourne le nombre de noeuds visités lors de la recherche courante
+     * @return le nombre de noeuds visités
+     */
+    int settledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Retourne la distance du noeud donné, infinie s'il n'a pas été atteint
+     * @param nodeId identité du noeud
+     * @return la distance
+     */
+    double distance(int nodeId) {
+        return isReached(nodeId) ? distances[nodeId] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Modifie la distance du noeud donné
+     * @param nodeId identité du noeud
+     * @param distance la nouvelle distance
+     */
+    void setDistance(int nodeId, double distance) {
+        generations[nodeId] = generation;
+        distances[nodeId] = distance;
+    }
+
+    /**
+     * Modifie la distance du noeud donné ainsi que le noeud et l'arête par lesquels il est atteint
+     * @param nodeId identité du noeud
+     * @param distance la nouvelle distance
+     * @param fromNodeId identité du noeud prédécesseur
+     * @param edgeId identité de l'arête prédécesseure
+     */
+    void reach(int nodeId, double distance, int fromNodeId, int edgeId) {
+        setDistance(nodeId, distance);
+        predecessorNode[nodeId] = fromNodeId;
+        predecessorEdge[nodeId] = edgeId;
+    }
+
+    /**
+     * Retourne le noeud prédécesseur du noeud donné, qui doit avoir été atteint
+     * @param nodeId identité du noeud
+     * @return l'identité du noeud prédécesseur
+     */
+    int predecessorNode(int nodeId) {
+        assert isReached(nodeId);
+
+        return predecessorNode[nodeId];
+    }
+
+    /**
+     * Retourne l'arête par laquelle le noeud donné a été atteint, qui doit avoir été atteint
+     * @param nodeId identité du noeud
+     * @return l'identité de l'arête prédécesseure
+     */
+    int predecessorEdge(int nodeId) {
+        assert isReached(nodeId);
+
+        return predecessorEdge[nodeId];
+    }
+}
@@ -0,0 +1,26 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Enregistrement qui représente l'heuristique de la distance à vol d'oiseau entre deux noeuds,
+ * qui est une borne inférieure cohérente pour toute fonction de coût dont les facteurs sont
+ * supérieurs ou égaux à 1
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public record StraightLineHeuristic(Graph graph) implements HeuristicFunction {
+
+    /**
+     * Retourne la distance à vol d'oiseau entre les deux noeuds donnés
+     *
+     * @param fromNodeId identité du noeud de départ
+     * @param toNodeId identité du noeud d'arrivée
+     * @return la distance en mètres
+     */
+    @Override
+    public double lowerBound(int fromNodeId, int toNodeId) {
+        return graph.nodePoint(fromNodeId).distanceTo(graph.nodePoint(toNodeId));
+    }
+}
@@ -0,0 +1,161 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+/**
+ * Classe qui détermine, au moyen des heuristiques 2-opt et Or-opt, un ordre de passage de faible coût
+ * par une suite de points dont le premier et le dernier sont fixes, à partir de la matrice des coûts
+ * des itinéraires entre ces points ; les coûts peuvent être asymétriques.
+ *
+ * @author Albert Fares (341018)
+ * @author Etienne Asselin (340201)
+ */
+public final class TourOptimizer {
+
+    /**
+     * Coût attribué à une étape sans itinéraire, supérieur au coût de tout itinéraire, afin que les ordres
+     * comportant moins d'étapes sans itinéraire soient préférés
+     */
+    private static final double UNREACHABLE_COST = 1e12;
+
+    /**
+     * Longueur maximale des suites de points déplacées par l'heuristique Or-opt
+     */
+    private static final int MAX_SEGMENT_LENGTH = 3;
+
+    /**
+     * Amélioration relative minimale d'un ordre pour qu'il soit retenu, évitant de boucler sur des
+     * différences d'arrondi
+     */
+    private static final double MIN_RELATIVE_IMPROVEMENT = 1e-9;
+
+    /**
+     * Constructeur privé car la classe est non instanciable
+     */
+    private TourOptimizer() {}
+
+    /**
+     * Détermine un ordre de passage de faible coût par les points de la matrice donnée, en partant de l'ordre
+     * initial et en appliquant les améliorations 2-opt (inversion d'une suite de points) et Or-opt
+     * (déplacement d'une suite d'au plus MAX_SEGMENT_LENGTH points) tant qu'elles réduisent le coût total et
+     * que la durée donnée n'est pas écoulée
+     * @param matrix matrice des coûts des itinéraires entre les points, qui doit être carrée
+     * @param timeBudgetNanos durée maximale de l'optimisation, en nanosecondes
+     * @return les index des points dans l'ordre de passage, le premier et le dernier restant en place
+     * @throws IllegalArgumentException si la matrice n'est pas carrée ou comporte moins de deux points
+     */
+    public static int[] optimizedOrder(RouteMatrix matrix, long timeBudgetNanos) {
+        int count = matrix.sourceCount();
+        Preconditions.checkArgument(count == matrix.targetCount() && count >= 2);
+
+        long deadline = System.nanoTime() + timeBudgetNanos;
+
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        int[] candidate = new int[count];
+        double cost = tourCost(matrix, order);
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = false;
+
+            for (int i = 1; i < count - 2 && System.nanoTime() < deadline; i++) {
+                for (int j = i + 1; j < count - 1; j++) {
+                    reverse(order, i, j, candidate);
+                    double candidateCost = tourCost(matrix, candidate);
+
+                    if (isImprovement(candidateCost, cost)) {
+                        System.arraycopy(candidate, 0, order, 0, count);
+                        cost = candidateCost;
+                        improved = true;
+                    }
+                }
+            }
+
+            for (int length = 1; length <= MAX_SEGMENT_LENGTH; length++) {
+                for (int from = 1; from + length < count && System.nanoTime() < deadline; from++) {
+                    for (int to = 1; to + length < count; to++) {
+                        if (to == from) continue;
+
+                        move(order, from, length, to, candidate);
+                        double candidateCost = tourCost(matrix, candidate);
+
+                        if (isImprovement(candidateCost, cost)) {
+                            System.arraycopy(candidate, 0, order, 0, count);
+                            cost = candidateCost;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Méthode outil qui calcule le coût total du passage par les points dans l'ordre donné
+     * @param matrix matrice des coûts
+     * @param order index des points dans l'ordre de passage
+     * @return le coût total
+     */
+    private static double tourCost(RouteMatrix matrix, int[] order) {
+        double cost = 0;
+
+        for (int i = 1; i < order.length; i++) {
+            cost += Math.min(matrix.cost(order[i - 1], order[i]), UNREACHABLE_COST);
+        }
+        return cost;
+    }
+
+    /**
+     * Méthode outil qui vérifie si le coût d'un ordre candidat est suffisamment inférieur au coût actuel
+     * @param candidateCost coût de l'ordre candidat
+     * @param cost coût de l'ordre actuel
+     * @return true si l'ordre candidat doit être retenu
+     */
+    private static boolean isImprovement(double candidateCost, double cost) {
+        return candidateCost < cost * (1 - MIN_RELATIVE_IMPROVEMENT);
+    }
+
+    /**
+     * Méthode outil qui écrit dans le tableau cible l'ordre donné dont la suite de points entre les deux
+     * index donnés est inversée
+     * @param order ordre de passage
+     * @param from index du premier point de la suite
+     * @param to index du dernier point de la suite
+     * @param target tableau dans lequel l'ordre modifié est écrit
+     */
+    private static void reverse(int[] order, int from, int to, int[] target) {
+        System.arraycopy(order, 0, target, 0, order.length);
+
+        for (int i = from, j = to; i <= to; i++, j--) {
+            target[i] = order[j];
+        }
+    }
+
+    /**
+     * Méthode outil qui écrit dans le tableau cible l'ordre donné dont la suite de points de longueur donnée
+     * est déplacée, de sorte qu'elle commence à l'index donné dans l'ordre modifié
+     * @param order ordre de passage
+     * @param from index du premier point de la suite
+     * @param length nombre de points de la suite
+     * @param to index du premier point de la suite dans l'ordre modifié
+     * @param target tableau dans lequel l'ordre modifié est écrit
+     */
+    private static void move(int[] order, int from, int length, int to, int[] target) {
+        int targetIndex = 0;
+
+        for (int i = 0; i < order.length; i++) {
+            if (targetIndex == to) {
+                System.arraycopy(order, from, target, targetIndex, length);
+                targetIndex += length;
+            }
+            if (i < from || i >= from + length) {
+                target[targetIndex++] = order[i];
+            }
+        }
+    }
+}